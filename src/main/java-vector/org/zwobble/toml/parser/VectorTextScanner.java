@@ -0,0 +1,39 @@
+package org.zwobble.toml.parser;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Scans text using the vector API, comparing as many bytes at a time as the
+ * platform supports.
+ * <p>
+ * This class must only be loaded when the {@code jdk.incubator.vector} module
+ * is available. It's compiled separately from the rest of the sources, which
+ * don't depend on the module.
+ */
+final class VectorTextScanner extends TextScanner {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    @Override
+    int skipText(byte[] bytes, int from, int to, byte firstExclusion, byte secondExclusion) {
+        var index = from;
+        var loopBound = from + SPECIES.loopBound(to - from);
+        while (index < loopBound) {
+            var vector = ByteVector.fromArray(SPECIES, bytes, index);
+            // Bytes in multi-byte sequences are negative, so are also less
+            // than space.
+            var stops = vector.compare(VectorOperators.LT, (byte) ' ')
+                .andNot(vector.compare(VectorOperators.EQ, (byte) '\t'))
+                .or(vector.compare(VectorOperators.EQ, (byte) 0x7f))
+                .or(vector.compare(VectorOperators.EQ, firstExclusion))
+                .or(vector.compare(VectorOperators.EQ, secondExclusion));
+            if (stops.anyTrue()) {
+                return index + stops.firstTrue();
+            }
+            index += SPECIES.length();
+        }
+
+        return super.skipText(bytes, index, to, firstExclusion, secondExclusion);
+    }
+}
@@ -0,0 +1,196 @@
+package org.zwobble.toml.parser;
+
+import org.zwobble.toml.sources.LineIndex;
+import org.zwobble.toml.sources.SourceRange;
+import org.zwobble.toml.values.TomlArray;
+import org.zwobble.toml.values.TomlBool;
+import org.zwobble.toml.values.TomlFloat;
+import org.zwobble.toml.values.TomlInt;
+import org.zwobble.toml.values.TomlValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Accumulates the elements of an array as it's parsed.
+ * <p>
+ * Integers, floats and booleans are accumulated as primitives for as long as
+ * every element has the same type, so that arrays of them never create a
+ * TOML value for each element. The primitives are only converted to TOML
+ * values if an element of a different type is added. The source ranges of
+ * the primitives are stored packed into longs.
+ */
+final class ArrayElements {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private enum Kind {
+        EMPTY,
+        LONGS,
+        DOUBLES,
+        BOOLEANS,
+        VALUES,
+    }
+
+    private Kind kind = Kind.EMPTY;
+    private int size = 0;
+    private long[] longs;
+    private double[] doubles;
+    private BitSet booleans;
+
+    /**
+     * The packed source ranges of the primitive elements, or null if they
+     * have no source ranges.
+     */
+    private long[] sourceRanges;
+    private LineIndex lineIndex;
+    private List<TomlValue> values;
+
+    void addLong(long value, SourceRange sourceRange) {
+        if (kind == Kind.EMPTY) {
+            start(Kind.LONGS, sourceRange);
+            longs = new long[INITIAL_CAPACITY];
+        } else if (kind != Kind.LONGS || !hasSameSourceRanges(sourceRange)) {
+            add(TomlInt.of(value, sourceRange));
+            return;
+        }
+        if (size == longs.length) {
+            longs = Arrays.copyOf(longs, size * 2);
+        }
+        longs[size] = value;
+        addSourceRange(sourceRange);
+    }
+
+    void addDouble(double value, SourceRange sourceRange) {
+        if (kind == Kind.EMPTY) {
+            start(Kind.DOUBLES, sourceRange);
+            doubles = new double[INITIAL_CAPACITY];
+        } else if (kind != Kind.DOUBLES || !hasSameSourceRanges(sourceRange)) {
+            add(new TomlFloat(value, sourceRange));
+            return;
+        }
+        if (size == doubles.length) {
+            doubles = Arrays.copyOf(doubles, size * 2);
+        }
+        doubles[size] = value;
+        addSourceRange(sourceRange);
+    }
+
+    void addBoolean(boolean value, SourceRange sourceRange) {
+        if (kind == Kind.EMPTY) {
+            start(Kind.BOOLEANS, sourceRange);
+            booleans = new BitSet();
+        } else if (kind != Kind.BOOLEANS || !hasSameSourceRanges(sourceRange)) {
+            add(TomlBool.of(value, sourceRange));
+            return;
+        }
+        booleans.set(size, value);
+        addSourceRange(sourceRange);
+    }
+
+    /**
+     * Add an element. Integers, floats and booleans are added as primitives
+     * where possible, which decodes lazy floats.
+     */
+    void add(TomlValue value) {
+        if (kind != Kind.VALUES) {
+            if (value instanceof TomlInt integer && kind != Kind.BOOLEANS && kind != Kind.DOUBLES) {
+                if (kind == Kind.EMPTY || hasSameSourceRanges(integer.sourceRange())) {
+                    addLong(integer.value(), integer.sourceRange());
+                    return;
+                }
+            } else if (value instanceof TomlFloat tomlFloat && kind != Kind.LONGS && kind != Kind.BOOLEANS) {
+                if (kind == Kind.EMPTY || hasSameSourceRanges(tomlFloat.sourceRange())) {
+                    addDouble(tomlFloat.value(), tomlFloat.sourceRange());
+                    return;
+                }
+            } else if (value instanceof TomlBool bool && kind != Kind.LONGS && kind != Kind.DOUBLES) {
+                if (kind == Kind.EMPTY || hasSameSourceRanges(bool.sourceRange())) {
+                    addBoolean(bool.value(), bool.sourceRange());
+                    return;
+                }
+            }
+            toValues();
+        }
+        values.add(value);
+        size += 1;
+    }
+
+    TomlArray toArray() {
+        return switch (kind) {
+            case EMPTY -> TomlArray.of(List.of());
+            case LONGS -> TomlArray.ofLongs(trim(longs), trimmedSourceRanges(), lineIndex);
+            case DOUBLES -> TomlArray.ofDoubles(trim(doubles), trimmedSourceRanges(), lineIndex);
+            case BOOLEANS -> TomlArray.ofBooleans(booleans, size, trimmedSourceRanges(), lineIndex);
+            case VALUES -> TomlArray.of(values);
+        };
+    }
+
+    private void start(Kind kind, SourceRange sourceRange) {
+        this.kind = kind;
+        if (sourceRange != null) {
+            sourceRanges = new long[INITIAL_CAPACITY];
+            lineIndex = sourceRange.lineIndex();
+        }
+    }
+
+    /**
+     * Whether a primitive element with the given source range can be stored
+     * alongside the elements so far, which is when either every element has
+     * a source range, or no element has a source range.
+     */
+    private boolean hasSameSourceRanges(SourceRange sourceRange) {
+        return (sourceRange == null) == (sourceRanges == null);
+    }
+
+    private void addSourceRange(SourceRange sourceRange) {
+        if (sourceRanges != null) {
+            if (size == sourceRanges.length) {
+                sourceRanges = Arrays.copyOf(sourceRanges, size * 2);
+            }
+            sourceRanges[size] = sourceRange.packed();
+        }
+        size += 1;
+    }
+
+    /**
+     * Convert the primitive elements so far to TOML values.
+     */
+    private void toValues() {
+        var values = new ArrayList<TomlValue>(Math.max(size * 2, INITIAL_CAPACITY));
+        for (var index = 0; index < size; index++) {
+            var sourceRange = sourceRanges == null
+                ? null
+                : SourceRange.unpack(sourceRanges[index], lineIndex);
+            values.add(switch (kind) {
+                case LONGS -> TomlInt.of(longs[index], sourceRange);
+                case DOUBLES -> new TomlFloat(doubles[index], sourceRange);
+                case BOOLEANS -> TomlBool.of(booleans.get(index), sourceRange);
+                default -> throw new IllegalStateException();
+            });
+        }
+        this.kind = Kind.VALUES;
+        this.values = values;
+        this.longs = null;
+        this.doubles = null;
+        this.booleans = null;
+        this.sourceRanges = null;
+        this.lineIndex = null;
+    }
+
+    private long[] trim(long[] values) {
+        return values.length == size ? values : Arrays.copyOf(values, size);
+    }
+
+    private double[] trim(double[] values) {
+        return values.length == size ? values : Arrays.copyOf(values, size);
+    }
+
+    private long[] trimmedSourceRanges() {
+        if (sourceRanges == null || sourceRanges.length == size) {
+            return sourceRanges;
+        }
+        return Arrays.copyOf(sourceRanges, size);
+    }
+}
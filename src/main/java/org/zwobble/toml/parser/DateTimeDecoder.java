@@ -0,0 +1,215 @@
+package org.zwobble.toml.parser;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.OffsetDateTime;
+import java.time.Year;
+import java.time.ZoneOffset;
+
+/**
+ * Decodes dates and times with a fixed layout directly from their digits.
+ * <p>
+ * Only the layouts that TOML documents normally use are decoded:
+ * {@code YYYY-MM-DD}, {@code HH:MM:SS} with an optional fraction of up to
+ * nine digits, and {@code Z} or {@code +HH:MM} offsets. The separator
+ * between the date and time and the {@code Z} offset may be in either case.
+ * <p>
+ * Decoding is split into three steps: the {@code read} methods read the
+ * fields from text with one of these layouts, the {@code InRange} methods
+ * check that the fields that were read represent a valid value, and the
+ * {@code to} methods create the value. The fields can then be stored
+ * without creating the value, with or without checking their ranges.
+ * <p>
+ * Text that doesn't have one of these layouts, or doesn't represent a valid
+ * date or time, should be parsed with the ISO formatters, such as
+ * {@link LocalDate#parse(CharSequence)}, which accept the same values and
+ * also handle every other case, including reporting errors.
+ */
+final class DateTimeDecoder {
+    private static final int DATE_LENGTH = 10;
+    private static final int TIME_LENGTH = 8;
+    private static final int MAX_FRACTION_DIGITS = 9;
+    private static final int MAX_OFFSET_MINUTES = 18 * 60;
+
+    private static final int[] NANOS_PER_FRACTION_DIGIT = {
+        0,
+        100_000_000,
+        10_000_000,
+        1_000_000,
+        100_000,
+        10_000,
+        1_000,
+        100,
+        10,
+        1,
+    };
+
+    int year;
+    int month;
+    int day;
+    int hour;
+    int minute;
+    int second;
+    int nano;
+    int offsetSign;
+    int offsetHours;
+    int offsetMinutes;
+
+    boolean readLocalDate(CharSequence text) {
+        return text.length() == DATE_LENGTH && readDate(text);
+    }
+
+    boolean readLocalTime(CharSequence text) {
+        return readTime(text, 0, text.length());
+    }
+
+    boolean readLocalDateTime(CharSequence text) {
+        return readDateTime(text, text.length());
+    }
+
+    boolean readOffsetDateTime(CharSequence text) {
+        var length = text.length();
+        if (length < DATE_LENGTH + 1 + TIME_LENGTH + 1) {
+            return false;
+        }
+
+        var last = text.charAt(length - 1);
+        if (last == 'Z' || last == 'z') {
+            offsetSign = 1;
+            offsetHours = 0;
+            offsetMinutes = 0;
+            return readDateTime(text, length - 1);
+        } else {
+            return readOffset(text, length - 6) && readDateTime(text, length - 6);
+        }
+    }
+
+    private boolean readDateTime(CharSequence text, int end) {
+        return end >= DATE_LENGTH + 1 + TIME_LENGTH &&
+            isDateTimeSeparator(text.charAt(DATE_LENGTH)) &&
+            readDate(text) &&
+            readTime(text, DATE_LENGTH + 1, end);
+    }
+
+    private static boolean isDateTimeSeparator(char character) {
+        return character == 'T' || character == 't';
+    }
+
+    private boolean readDate(CharSequence text) {
+        if (text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return false;
+        }
+        year = digits(text, 0, 4);
+        month = digits(text, 5, 2);
+        day = digits(text, 8, 2);
+        return year >= 0 && month >= 0 && day >= 0;
+    }
+
+    private boolean readTime(CharSequence text, int start, int end) {
+        var length = end - start;
+        if (length < TIME_LENGTH || text.charAt(start + 2) != ':' || text.charAt(start + 5) != ':') {
+            return false;
+        }
+        hour = digits(text, start, 2);
+        minute = digits(text, start + 3, 2);
+        second = digits(text, start + 6, 2);
+        if (hour < 0 || minute < 0 || second < 0) {
+            return false;
+        }
+
+        nano = 0;
+        if (length > TIME_LENGTH) {
+            var fractionDigitCount = length - TIME_LENGTH - 1;
+            if (
+                text.charAt(start + TIME_LENGTH) != '.' ||
+                    fractionDigitCount == 0 ||
+                    fractionDigitCount > MAX_FRACTION_DIGITS
+            ) {
+                return false;
+            }
+            var fraction = digits(text, start + TIME_LENGTH + 1, fractionDigitCount);
+            if (fraction < 0) {
+                return false;
+            }
+            nano = fraction * NANOS_PER_FRACTION_DIGIT[fractionDigitCount];
+        }
+        return true;
+    }
+
+    private boolean readOffset(CharSequence text, int start) {
+        var sign = text.charAt(start);
+        if ((sign != '+' && sign != '-') || text.charAt(start + 3) != ':') {
+            return false;
+        }
+        offsetSign = sign == '+' ? 1 : -1;
+        offsetHours = digits(text, start + 1, 2);
+        offsetMinutes = digits(text, start + 4, 2);
+        return offsetHours >= 0 && offsetMinutes >= 0;
+    }
+
+    /**
+     * Whether the year, month and day that were read are a valid date.
+     */
+    boolean isDateInRange() {
+        return month >= 1 && month <= 12 &&
+            day >= 1 && day <= Month.of(month).length(Year.isLeap(year));
+    }
+
+    /**
+     * Whether the hour, minute and second that were read are a valid time.
+     */
+    boolean isTimeInRange() {
+        return hour <= 23 && minute <= 59 && second <= 59;
+    }
+
+    /**
+     * Whether the offset that was read is a valid offset.
+     */
+    boolean isOffsetInRange() {
+        return offsetMinutes <= 59 && offsetHours * 60 + offsetMinutes <= MAX_OFFSET_MINUTES;
+    }
+
+    /**
+     * The total seconds of the offset that was read.
+     */
+    int offsetTotalSeconds() {
+        return offsetSign * (offsetHours * 60 + offsetMinutes) * 60;
+    }
+
+    LocalDate toLocalDate() {
+        return LocalDate.of(year, month, day);
+    }
+
+    LocalTime toLocalTime() {
+        return LocalTime.of(hour, minute, second, nano);
+    }
+
+    LocalDateTime toLocalDateTime() {
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    OffsetDateTime toOffsetDateTime() {
+        return OffsetDateTime.of(
+            year, month, day, hour, minute, second, nano,
+            ZoneOffset.ofTotalSeconds(offsetTotalSeconds())
+        );
+    }
+
+    /**
+     * The value of the ASCII digits in the given range, or -1 if any of the
+     * characters isn't an ASCII digit.
+     */
+    private static int digits(CharSequence text, int start, int count) {
+        var value = 0;
+        for (var index = start; index < start + count; index++) {
+            var character = text.charAt(index);
+            if (character < '0' || character > '9') {
+                return -1;
+            }
+            value = value * 10 + character - '0';
+        }
+        return value;
+    }
+}
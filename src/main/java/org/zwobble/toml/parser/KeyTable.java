@@ -0,0 +1,163 @@
+package org.zwobble.toml.parser;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The keys seen so far while parsing a document.
+ * <p>
+ * Keys are matched against the source text without creating a string, so
+ * each distinct key is only created once per document, however many tables
+ * use it. Since the same string is used each time, its hash code is only
+ * computed once, and map lookups usually succeed on identity.
+ * <p>
+ * To bound the memory used by documents with many distinct keys, keys are
+ * no longer added once the table is full, although they may still be
+ * matched.
+ * <p>
+ * If there is a {@link TomlSymbolTable}, keys that haven't been seen in this
+ * document are looked up in it before a new string is created.
+ */
+final class KeyTable {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MAX_SIZE = 4096;
+
+    private final TomlSymbolTable symbolTable;
+    private String[] keys;
+    private int[] hashes;
+    private int size;
+
+    /**
+     * @param symbolTable The symbol table shared with other documents, or
+     *                    null if there isn't one.
+     */
+    KeyTable(TomlSymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+        this.keys = new String[INITIAL_CAPACITY];
+        this.hashes = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Get the key with the characters of the text between the given indices.
+     */
+    String get(CharSequence text, int start, int end) {
+        var hash = hash(text, start, end);
+
+        var mask = keys.length - 1;
+        for (var slot = hash & mask; ; slot = (slot + 1) & mask) {
+            var key = keys[slot];
+            if (key == null) {
+                var newKey = symbolTable == null
+                    ? text.subSequence(start, end).toString()
+                    : symbolTable.get(text, start, end, hash);
+                return add(slot, newKey, hash);
+            }
+            if (hashes[slot] == hash && matches(key, text, start, end)) {
+                return key;
+            }
+        }
+    }
+
+    /**
+     * Get the key with the characters of the ASCII bytes between the given
+     * indices.
+     */
+    String getAscii(byte[] bytes, int start, int end) {
+        var hash = hashAscii(bytes, start, end);
+
+        var mask = keys.length - 1;
+        for (var slot = hash & mask; ; slot = (slot + 1) & mask) {
+            var key = keys[slot];
+            if (key == null) {
+                var newKey = symbolTable == null
+                    ? asciiString(bytes, start, end)
+                    : symbolTable.getAscii(bytes, start, end, hash);
+                return add(slot, newKey, hash);
+            }
+            if (hashes[slot] == hash && matchesAscii(key, bytes, start, end)) {
+                return key;
+            }
+        }
+    }
+
+    private String add(int slot, String key, int hash) {
+        if (size == MAX_SIZE) {
+            return key;
+        }
+
+        keys[slot] = key;
+        hashes[slot] = hash;
+        size += 1;
+        if (size * 2 > keys.length) {
+            resize();
+        }
+        return key;
+    }
+
+    private void resize() {
+        var oldKeys = keys;
+        var oldHashes = hashes;
+        keys = new String[oldKeys.length * 2];
+        hashes = new int[oldKeys.length * 2];
+        var mask = keys.length - 1;
+        for (var oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+            if (oldKeys[oldSlot] != null) {
+                var slot = oldHashes[oldSlot] & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[oldSlot];
+                hashes[slot] = oldHashes[oldSlot];
+            }
+        }
+    }
+
+    /**
+     * The same hash code as {@link String#hashCode()} for the characters.
+     */
+    static int hash(CharSequence text, int start, int end) {
+        var hash = 0;
+        for (var index = start; index < end; index++) {
+            hash = 31 * hash + text.charAt(index);
+        }
+        return hash;
+    }
+
+    /**
+     * The same hash code as {@link String#hashCode()} for the ASCII bytes.
+     */
+    static int hashAscii(byte[] bytes, int start, int end) {
+        var hash = 0;
+        for (var index = start; index < end; index++) {
+            hash = 31 * hash + bytes[index];
+        }
+        return hash;
+    }
+
+    static String asciiString(byte[] bytes, int start, int end) {
+        return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    static boolean matches(String key, CharSequence text, int start, int end) {
+        if (key.length() != end - start) {
+            return false;
+        }
+        for (var index = 0; index < key.length(); index++) {
+            if (key.charAt(index) != text.charAt(start + index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean matchesAscii(String key, byte[] bytes, int start, int end) {
+        if (key.length() != end - start) {
+            return false;
+        }
+        for (var index = 0; index < key.length(); index++) {
+            if (key.charAt(index) != bytes[start + index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
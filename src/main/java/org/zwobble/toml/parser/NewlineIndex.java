@@ -0,0 +1,53 @@
+package org.zwobble.toml.parser;
+
+import org.zwobble.toml.sources.LineIndex;
+
+import java.util.Arrays;
+
+/**
+ * The positions of the newlines in a TOML document.
+ * <p>
+ * The parser adds each newline as it skips over it, so reading code points
+ * doesn't check for newlines. Lines and columns are only calculated when
+ * requested, by searching the newline positions.
+ */
+final class NewlineIndex implements LineIndex {
+    private static final int[] EMPTY = new int[0];
+
+    private int[] newlineCodePointIndexes = EMPTY;
+    private int newlineCount = 0;
+
+    /**
+     * Add a newline to the index.
+     *
+     * @param codePointIndex The index of the newline code point, which must be
+     *                       after all newlines already in the index.
+     */
+    void addNewline(int codePointIndex) {
+        if (newlineCount == newlineCodePointIndexes.length) {
+            newlineCodePointIndexes = Arrays.copyOf(
+                newlineCodePointIndexes,
+                Math.max(16, newlineCount * 2)
+            );
+        }
+        newlineCodePointIndexes[newlineCount++] = codePointIndex;
+    }
+
+    @Override
+    public int line(int codePointIndex) {
+        return newlinesBefore(codePointIndex) + 1;
+    }
+
+    @Override
+    public int column(int codePointIndex) {
+        var newlineCount = newlinesBefore(codePointIndex);
+        var lineStart = newlineCount == 0 ? 0 : newlineCodePointIndexes[newlineCount - 1] + 1;
+        return codePointIndex - lineStart + 1;
+    }
+
+    private int newlinesBefore(int codePointIndex) {
+        var index = Arrays.binarySearch(newlineCodePointIndexes, 0, newlineCount, codePointIndex);
+        // A position on a newline is at the end of the line it ends.
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -0,0 +1,79 @@
+package org.zwobble.toml.parser;
+
+import org.zwobble.toml.values.TomlTable;
+import org.zwobble.toml.values.TomlValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The shapes of the tables built while parsing a document, so that tables
+ * with the same keys in the same order share a shape.
+ * <p>
+ * Each shape is represented by the first table built with it, and later
+ * tables with the same keys are created from that table with
+ * {@link TomlTable#withValues(TomlValue[])}. Shapes are found by following a
+ * trie of keys from the empty shape, adding one key at a time. Most nodes only ever have one child, such as the nodes
+ * for the entries of an array of tables, so the first child of each node is
+ * stored without a map.
+ * <p>
+ * Tables with many keys are unlikely to share a shape, so to avoid growing
+ * the trie by one node for each of their keys, their shapes aren't shared.
+ */
+final class TableShapes {
+    private static final int MAX_SHARED_SIZE = 64;
+
+    private final Node root;
+
+    TableShapes() {
+        this.root = new Node();
+    }
+
+    /**
+     * Create a table with the given keys, which must be distinct, sharing
+     * its shape with earlier tables that have the same keys.
+     * <p>
+     * Neither array may be modified after this method is called.
+     */
+    TomlTable table(String[] keys, TomlValue[] values) {
+        if (keys.length > MAX_SHARED_SIZE) {
+            return TomlTable.of(keys, values);
+        }
+
+        var node = root;
+        for (var key : keys) {
+            node = node.child(key);
+        }
+        if (node.table == null) {
+            node.table = TomlTable.of(keys, values);
+            return node.table;
+        }
+        return node.table.withValues(values);
+    }
+
+    private static final class Node {
+        private TomlTable table;
+        private String firstChildKey;
+        private Node firstChild;
+        private Map<String, Node> otherChildren;
+
+        private Node child(String key) {
+            // Keys are interned by the parser, so usually match on identity.
+            if (firstChildKey == key) {
+                return firstChild;
+            }
+            if (firstChild == null) {
+                firstChildKey = key;
+                firstChild = new Node();
+                return firstChild;
+            }
+            if (firstChildKey.equals(key)) {
+                return firstChild;
+            }
+            if (otherChildren == null) {
+                otherChildren = new HashMap<>();
+            }
+            return otherChildren.computeIfAbsent(key, newKey -> new Node());
+        }
+    }
+}
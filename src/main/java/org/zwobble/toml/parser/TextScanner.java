@@ -0,0 +1,59 @@
+package org.zwobble.toml.parser;
+
+/**
+ * Finds the end of a run of text in UTF-8 encoded bytes, such as the body of
+ * a string or a comment.
+ * <p>
+ * Text is made up of tab and printable ASCII, except for up to two excluded
+ * code points such as quotes and backslashes. Scanning stops at the first
+ * byte that is a control character, an excluded code point, or part of a
+ * multi-byte sequence, which is left to the caller to handle.
+ * <p>
+ * This implementation scans one byte at a time. When the
+ * {@code jdk.incubator.vector} module is available, {@link #DEFAULT} scans
+ * many bytes at a time instead.
+ */
+class TextScanner {
+    static final TextScanner SCALAR = new TextScanner();
+
+    static final TextScanner DEFAULT = load();
+
+    private static TextScanner load() {
+        // Incubator modules are only resolved when added explicitly, such as
+        // with --add-modules, and classes that refer to them can't be loaded
+        // otherwise.
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (TextScanner) Class.forName("org.zwobble.toml.parser.VectorTextScanner")
+                    .getDeclaredConstructor()
+                    .newInstance();
+            } catch (ReflectiveOperationException | LinkageError exception) {
+                // Fall back to scanning one byte at a time
+            }
+        }
+        return SCALAR;
+    }
+
+    TextScanner() {
+    }
+
+    /**
+     * Find the end of the run of text in the given range of bytes.
+     *
+     * @return The index of the first byte from {@code from} that isn't text,
+     * or {@code to} if all the bytes in the range are text.
+     */
+    int skipText(byte[] bytes, int from, int to, byte firstExclusion, byte secondExclusion) {
+        var index = from;
+        while (index < to && isText(bytes[index], firstExclusion, secondExclusion)) {
+            index += 1;
+        }
+        return index;
+    }
+
+    static boolean isText(byte value, byte firstExclusion, byte secondExclusion) {
+        return ((value >= ' ' && value != 0x7f) || value == '\t') &&
+            value != firstExclusion &&
+            value != secondExclusion;
+    }
+}
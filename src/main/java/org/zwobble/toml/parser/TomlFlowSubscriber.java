@@ -0,0 +1,99 @@
+package org.zwobble.toml.parser;
+
+import org.zwobble.toml.errors.TomlParseError;
+import org.zwobble.toml.values.TomlTable;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * A subscriber that parses a TOML 1.0.0 document from a publisher of UTF-8
+ * encoded chunks.
+ * <p>
+ * One chunk is requested at a time, and the next chunk is only requested
+ * once the previous chunk has been parsed, so a slow parser applies
+ * backpressure to the publisher instead of buffering the document.
+ * <p>
+ * {@link #result()} completes with the root table once the publisher
+ * completes, or exceptionally with a {@link TomlParseError} if the document
+ * is invalid, in which case the subscription is cancelled. Cancelling the
+ * result also cancels the subscription.
+ */
+public final class TomlFlowSubscriber implements Flow.Subscriber<ByteBuffer> {
+    private final TomlPushParser parser;
+    private final CompletableFuture<TomlTable> result;
+    private Flow.Subscription subscription;
+
+    public TomlFlowSubscriber() {
+        this(TomlParseOptions.defaults());
+    }
+
+    /**
+     * @param options The options to use when parsing the document. Since
+     *                the input isn't read from a file, the file read options
+     *                are ignored.
+     */
+    public TomlFlowSubscriber(TomlParseOptions options) {
+        this.parser = new TomlPushParser(options);
+        this.result = new CompletableFuture<>();
+    }
+
+    /**
+     * The root table of the parsed document.
+     */
+    public CompletableFuture<TomlTable> result() {
+        return result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+
+        this.subscription = subscription;
+        result.whenComplete((table, exception) -> {
+            if (result.isCancelled()) {
+                subscription.cancel();
+            }
+        });
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(ByteBuffer chunk) {
+        if (result.isDone()) {
+            return;
+        }
+
+        try {
+            parser.feed(chunk);
+        } catch (RuntimeException exception) {
+            subscription.cancel();
+            result.completeExceptionally(exception);
+            return;
+        }
+
+        subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        if (result.isDone()) {
+            return;
+        }
+
+        try {
+            result.complete(parser.finish());
+        } catch (RuntimeException exception) {
+            result.completeExceptionally(exception);
+        }
+    }
+}
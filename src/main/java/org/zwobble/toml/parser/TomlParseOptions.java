@@ -0,0 +1,251 @@
+package org.zwobble.toml.parser;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Options that control how TOML documents are read and parsed.
+ * <p>
+ * Options are immutable: each {@code with} method returns a copy with the
+ * given option changed.
+ */
+public final class TomlParseOptions {
+    private static final TomlParseOptions DEFAULT = new TomlParseOptions(new Builder());
+
+    /**
+     * The default options.
+     */
+    public static TomlParseOptions defaults() {
+        return DEFAULT;
+    }
+
+    /**
+     * How {@link TomlParser#parseFile(java.nio.file.Path, TomlParseOptions)}
+     * reads the contents of a file.
+     */
+    public enum FileReadStrategy {
+        /**
+         * Read files smaller than the memory map threshold into memory in a
+         * single call, and memory map larger files.
+         */
+        AUTOMATIC,
+
+        /**
+         * Read the file through a buffered input stream.
+         */
+        STREAM,
+
+        /**
+         * Read the entire file into memory before parsing.
+         */
+        READ_ALL_BYTES,
+
+        /**
+         * Memory map the file and parse the mapped bytes directly. Files
+         * larger than 2 GB can't be mapped into a single buffer, so are read
+         * from the file channel instead.
+         */
+        MEMORY_MAP,
+    }
+
+    private final FileReadStrategy fileReadStrategy;
+    private final long memoryMapThreshold;
+    private final boolean retainSource;
+    private final boolean sourceRanges;
+    private final boolean lazyScalars;
+    private final boolean deferredScalarErrors;
+    private final boolean compactDateTimes;
+    private final TomlSymbolTable symbolTable;
+
+    private TomlParseOptions(Builder builder) {
+        this.fileReadStrategy = builder.fileReadStrategy;
+        this.memoryMapThreshold = builder.memoryMapThreshold;
+        this.retainSource = builder.retainSource;
+        this.sourceRanges = builder.sourceRanges;
+        this.lazyScalars = builder.lazyScalars;
+        this.deferredScalarErrors = builder.deferredScalarErrors;
+        this.compactDateTimes = builder.compactDateTimes;
+        this.symbolTable = builder.symbolTable;
+    }
+
+    public FileReadStrategy fileReadStrategy() {
+        return fileReadStrategy;
+    }
+
+    /**
+     * The size in bytes at or above which files are memory mapped when using
+     * {@link FileReadStrategy#AUTOMATIC}.
+     */
+    public long memoryMapThreshold() {
+        return memoryMapThreshold;
+    }
+
+    /**
+     * Whether parsed strings may reference the source document instead of
+     * copying it.
+     * <p>
+     * When enabled, strings without escape sequences are only converted to a
+     * {@link String} when {@link org.zwobble.toml.values.TomlString#value()}
+     * is first called, but the source document is kept in memory for as long
+     * as any such string is reachable. Text passed to
+     * {@link TomlParser#parseString(CharSequence, TomlParseOptions)} must then
+     * not be modified after parsing. Sources that are read through a reusable
+     * buffer, such as input streams, are always copied.
+     */
+    public boolean retainSource() {
+        return retainSource;
+    }
+
+    /**
+     * Whether parsed values have source ranges.
+     * <p>
+     * When disabled, {@code sourceRange()} returns null for every value,
+     * which avoids the cost of tracking and storing the ranges, and allows
+     * common values such as booleans and small integers to be shared. Errors
+     * still have source ranges, but newlines aren't recorded, so their line
+     * and column aren't known.
+     */
+    public boolean sourceRanges() {
+        return sourceRanges;
+    }
+
+    /**
+     * Whether floats, dates and times are decoded the first time their value
+     * is needed, rather than while parsing.
+     * <p>
+     * Floats keep their decimal significand and exponent until they're
+     * decoded, except for floats in arrays, which are decoded while parsing
+     * so that the array can store them as doubles. Dates and times keep their text, which is a view of the source
+     * when {@link #retainSource()} is enabled, and are decoded once, the
+     * first time their value is needed. Dates and times with an unusual
+     * layout, such as a fraction of more than nine digits, are still decoded
+     * while parsing. If {@link #compactDateTimes()} is also enabled, dates
+     * and times are stored compactly instead.
+     * <p>
+     * The syntax of every value is still checked while parsing, as are the
+     * ranges of dates and times unless {@link #deferredScalarErrors()} is
+     * enabled, so the same documents are rejected. Integers are always
+     * decoded while parsing, since checking their syntax decodes them.
+     * <p>
+     * This option is independent of {@link #retainSource()}, which controls
+     * whether strings may refer to the source document, so strings are only
+     * decoded lazily when the source is also retained.
+     */
+    public boolean lazyScalars() {
+        return lazyScalars;
+    }
+
+    /**
+     * Whether dates and times that are syntactically valid but out of range,
+     * such as February 30th, are only reported when their value is first
+     * needed.
+     * <p>
+     * This only applies when {@link #lazyScalars()} is enabled. The error is
+     * then thrown by the {@code value()} method of the date or time, rather
+     * than by the parser.
+     */
+    public boolean deferredScalarErrors() {
+        return deferredScalarErrors;
+    }
+
+    /**
+     * Whether dates and times store their fields packed into longs, rather
+     * than retaining java.time objects, which uses a fraction of the memory
+     * for documents with many dates and times. A new java.time object is then
+     * created each time a value is needed.
+     */
+    public boolean compactDateTimes() {
+        return compactDateTimes;
+    }
+
+    /**
+     * The symbol table to resolve keys and short string values through, or
+     * null if each document creates its own strings.
+     * <p>
+     * A symbol table can be shared by any number of parses, including
+     * concurrent parses, so that documents that share keys and values, such
+     * as the configuration files of many similar services, use the same
+     * {@link String} instances.
+     */
+    public TomlSymbolTable symbolTable() {
+        return symbolTable;
+    }
+
+    public TomlParseOptions withFileReadStrategy(FileReadStrategy fileReadStrategy) {
+        return with(builder -> builder.fileReadStrategy = Objects.requireNonNull(fileReadStrategy));
+    }
+
+    /**
+     * @param memoryMapThreshold The size in bytes at or above which files
+     *                           are memory mapped when using
+     *                           {@link FileReadStrategy#AUTOMATIC}.
+     * @throws IllegalArgumentException if the threshold is negative.
+     */
+    public TomlParseOptions withMemoryMapThreshold(long memoryMapThreshold) {
+        if (memoryMapThreshold < 0) {
+            throw new IllegalArgumentException(
+                "memory map threshold must not be negative, but was " + memoryMapThreshold
+            );
+        }
+        return with(builder -> builder.memoryMapThreshold = memoryMapThreshold);
+    }
+
+    public TomlParseOptions withRetainSource(boolean retainSource) {
+        return with(builder -> builder.retainSource = retainSource);
+    }
+
+    public TomlParseOptions withSourceRanges(boolean sourceRanges) {
+        return with(builder -> builder.sourceRanges = sourceRanges);
+    }
+
+    public TomlParseOptions withLazyScalars(boolean lazyScalars) {
+        return with(builder -> builder.lazyScalars = lazyScalars);
+    }
+
+    public TomlParseOptions withDeferredScalarErrors(boolean deferredScalarErrors) {
+        return with(builder -> builder.deferredScalarErrors = deferredScalarErrors);
+    }
+
+    public TomlParseOptions withCompactDateTimes(boolean compactDateTimes) {
+        return with(builder -> builder.compactDateTimes = compactDateTimes);
+    }
+
+    public TomlParseOptions withSymbolTable(TomlSymbolTable symbolTable) {
+        return with(builder -> builder.symbolTable = symbolTable);
+    }
+
+    private TomlParseOptions with(Consumer<Builder> change) {
+        var builder = new Builder(this);
+        change.accept(builder);
+        return new TomlParseOptions(builder);
+    }
+
+    /**
+     * The options being changed by a {@code with} method, which start as
+     * either the defaults or a copy of existing options.
+     */
+    private static final class Builder {
+        private FileReadStrategy fileReadStrategy = FileReadStrategy.AUTOMATIC;
+        private long memoryMapThreshold = 1024 * 1024;
+        private boolean retainSource = false;
+        private boolean sourceRanges = true;
+        private boolean lazyScalars = false;
+        private boolean deferredScalarErrors = false;
+        private boolean compactDateTimes = false;
+        private TomlSymbolTable symbolTable = null;
+
+        private Builder() {
+        }
+
+        private Builder(TomlParseOptions options) {
+            this.fileReadStrategy = options.fileReadStrategy;
+            this.memoryMapThreshold = options.memoryMapThreshold;
+            this.retainSource = options.retainSource;
+            this.sourceRanges = options.sourceRanges;
+            this.lazyScalars = options.lazyScalars;
+            this.deferredScalarErrors = options.deferredScalarErrors;
+            this.compactDateTimes = options.compactDateTimes;
+            this.symbolTable = options.symbolTable;
+        }
+    }
+}
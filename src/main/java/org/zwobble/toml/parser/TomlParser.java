@@ -8,11 +8,15 @@ import org.zwobble.toml.values.*;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.CodingErrorAction;
-import java.nio.charset.MalformedInputException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -20,8 +24,10 @@ import java.time.OffsetDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.function.Predicate;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 import static org.zwobble.toml.parser.UnicodeCodePoints.formatCodePoint;
 
@@ -41,11 +47,57 @@ public class TomlParser {
      * @throws TomlParseError if the TOML document is invalid
      */
     public static TomlTable parseFile(Path path) throws IOException {
-        try (var inputStream = new FileInputStream(path.toFile())) {
-            return parseInputStream(inputStream);
+        return parseFile(path, TomlParseOptions.defaults());
+    }
+
+    /**
+     * Parse a TOML 1.0.0 file at the given path.
+     * <p>
+     * The file is read using the strategy given by
+     * {@link TomlParseOptions#fileReadStrategy()}. All strategies produce the
+     * same result. When the file is memory mapped, it should not be modified
+     * while it is being parsed.
+     *
+     * @param path The path to the file.
+     * @param options The options to use when reading and parsing the file.
+     * @return The root table of the TOML file.
+     * @throws IOException if there is an error while reading the file.
+     * @throws TomlParseError if the TOML document is invalid
+     */
+    public static TomlTable parseFile(Path path, TomlParseOptions options) throws IOException {
+        return switch (options.fileReadStrategy()) {
+            case STREAM -> parseInputStream(new FileInputStream(path.toFile()), options);
+            case READ_ALL_BYTES -> parseBytes(Files.readAllBytes(path), options);
+            case MEMORY_MAP -> parseMemoryMappedFile(path, options);
+            case AUTOMATIC -> {
+                var size = Files.size(path);
+                if (size < options.memoryMapThreshold()) {
+                    yield parseBytes(Files.readAllBytes(path), options);
+                } else {
+                    yield parseMemoryMappedFile(path, options);
+                }
+            }
+        };
+    }
+
+    private static TomlTable parseMemoryMappedFile(Path path, TomlParseOptions options) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                // A single buffer can't map more than 2 GB.
+                return parse(Utf8Reader.fromByteChannel(channel), options);
+            }
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return parse(new Utf8Reader(buffer, null), options);
         }
     }
 
+    private static TomlTable parseBytes(byte[] bytes, TomlParseOptions options) throws IOException {
+        var reader = new Utf8Reader(ByteBuffer.wrap(bytes), null);
+        // The bytes were read by the parser, so nothing else can modify them.
+        reader.isSourceRetained = options.retainSource();
+        return parse(reader, options);
+    }
+
     /**
      * Parse a TOML 1.0.0 file from the given input stream.
      *
@@ -55,84 +107,294 @@ public class TomlParser {
      * @throws TomlParseError if the TOML document is invalid
      */
     public static TomlTable parseInputStream(InputStream inputStream) throws IOException {
-        var decoder = StandardCharsets.UTF_8
-            .newDecoder()
-            .onMalformedInput(CodingErrorAction.REPORT)
-            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        return parseInputStream(inputStream, TomlParseOptions.defaults());
+    }
+
+    /**
+     * Parse a TOML 1.0.0 file from the given input stream.
+     *
+     * @param inputStream The input stream to parse.
+     * @param options The options to use when parsing the input stream.
+     * @return The root table of the TOML file.
+     * @throws IOException if there is an error while reading the input stream.
+     * @throws TomlParseError if the TOML document is invalid
+     */
+    public static TomlTable parseInputStream(InputStream inputStream, TomlParseOptions options) throws IOException {
+        try (inputStream) {
+            return parse(Utf8Reader.fromInputStream(inputStream), options);
+        }
+    }
+
+    /**
+     * Parse a TOML 1.0.0 document from the UTF-8 encoded bytes between the
+     * position and the limit of a buffer.
+     * <p>
+     * The bytes are read in place, including from direct buffers. The
+     * position and limit of the buffer are left unchanged, and the buffer is
+     * not referenced once this method returns, so it may be reused
+     * immediately.
+     *
+     * @param buffer The buffer to parse.
+     * @return The root table of the TOML document.
+     * @throws TomlParseError if the TOML document is invalid
+     */
+    public static TomlTable parseByteBuffer(ByteBuffer buffer) {
+        return parseByteBuffer(buffer, TomlParseOptions.defaults());
+    }
+
+    /**
+     * Parse a TOML 1.0.0 document from the UTF-8 encoded bytes between the
+     * position and the limit of a buffer.
+     * <p>
+     * The bytes are read in place, including from direct buffers. The
+     * position and limit of the buffer are left unchanged, and the buffer is
+     * not referenced once this method returns, so it may be reused
+     * immediately. Strings are therefore always copied, whatever the value of
+     * {@link TomlParseOptions#retainSource()}.
+     *
+     * @param buffer The buffer to parse.
+     * @param options The options to use when parsing the document.
+     * @return The root table of the TOML document.
+     * @throws TomlParseError if the TOML document is invalid
+     */
+    public static TomlTable parseByteBuffer(ByteBuffer buffer, TomlParseOptions options) {
+        try {
+            return parse(new Utf8Reader(buffer, null), options);
+        } catch (IOException exception) {
+            // Utf8Reader only throws IOException when reading from a source
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Parse a TOML 1.0.0 document from a channel of UTF-8 encoded bytes.
+     * <p>
+     * The channel should be in blocking mode. It is read until the end of the
+     * stream, but is not closed.
+     *
+     * @param channel The channel to parse.
+     * @return The root table of the TOML document.
+     * @throws IOException if there is an error while reading the channel.
+     * @throws TomlParseError if the TOML document is invalid
+     */
+    public static TomlTable parseByteChannel(ReadableByteChannel channel) throws IOException {
+        return parseByteChannel(channel, TomlParseOptions.defaults());
+    }
+
+    /**
+     * Parse a TOML 1.0.0 document from a channel of UTF-8 encoded bytes.
+     * <p>
+     * The channel should be in blocking mode. It is read until the end of the
+     * stream, but is not closed.
+     *
+     * @param channel The channel to parse.
+     * @param options The options to use when parsing the document.
+     * @return The root table of the TOML document.
+     * @throws IOException if there is an error while reading the channel.
+     * @throws TomlParseError if the TOML document is invalid
+     */
+    public static TomlTable parseByteChannel(ReadableByteChannel channel, TomlParseOptions options) throws IOException {
+        return parse(Utf8Reader.fromByteChannel(channel), options);
+    }
 
-        try (var reader = new InputStreamReader(inputStream, decoder)) {
-            return parseReader(reader);
-        } catch (MalformedInputException exception) {
-            throw new TomlInvalidUtf8Error(new SourcePosition(0).toSourceRange());
+    /**
+     * Parse a TOML 1.0.0 document that is already in memory.
+     * <p>
+     * This is faster than wrapping the text in a {@link java.io.Reader}, since
+     * the text can be read by index.
+     *
+     * @param text The TOML document to parse.
+     * @return The root table of the TOML document.
+     * @throws TomlParseError if the TOML document is invalid
+     */
+    public static TomlTable parseString(CharSequence text) {
+        return parseString(text, TomlParseOptions.defaults());
+    }
+
+    /**
+     * Parse a TOML 1.0.0 document that is already in memory.
+     * <p>
+     * If {@link TomlParseOptions#retainSource()} is enabled, the text must not
+     * be modified while any of the parsed strings are in use.
+     *
+     * @param text The TOML document to parse.
+     * @param options The options to use when parsing the document.
+     * @return The root table of the TOML document.
+     * @throws TomlParseError if the TOML document is invalid
+     */
+    public static TomlTable parseString(CharSequence text, TomlParseOptions options) {
+        var reader = new CharSequenceReader(text);
+        reader.isSourceRetained = options.retainSource();
+        try {
+            return parse(reader, options);
+        } catch (IOException exception) {
+            // CharSequenceReader never throws IOException
+            throw new UncheckedIOException(exception);
         }
     }
 
     public static TomlTable parseReader(java.io.Reader rawReader) throws IOException {
-        var reader = new Reader(rawReader);
+        return parseReader(rawReader, TomlParseOptions.defaults());
+    }
 
-        var rootTable = new TomlTableBuilder(TomlTableBuilder.DefinedBy.KEY_IMPLICIT);
-        var activeTable = rootTable;
+    /**
+     * Parse a TOML 1.0.0 document from a reader.
+     * <p>
+     * The reader is read until the end of the stream, but is not closed.
+     *
+     * @param rawReader The reader to parse.
+     * @param options The options to use when parsing the document.
+     * @return The root table of the TOML document.
+     * @throws IOException if there is an error while reading the reader.
+     * @throws TomlParseError if the TOML document is invalid
+     */
+    public static TomlTable parseReader(java.io.Reader rawReader, TomlParseOptions options) throws IOException {
+        return parse(new CharReader(rawReader), options);
+    }
 
-        // TODO: handle surrogate pairs
-        reader.read();
+    private static TomlTable parse(Reader reader, TomlParseOptions options) throws IOException {
+        var document = new IncrementalDocument(options);
+        document.configure(reader);
+        document.parseExpressions(reader);
+        return document.toTable();
+    }
 
-        while (true) {
-            skipWhitespace(reader);
+    /**
+     * A document that can be parsed in segments, such as by
+     * {@link TomlPushParser}.
+     * <p>
+     * Each segment must end either at the end of the document, or at the end
+     * of a line that is not within a multi-line value.
+     */
+    static final class IncrementalDocument {
+        private final TomlParseOptions options;
+        private final TomlTableBuilder rootTable;
+        private TomlTableBuilder activeTable;
+        private final NewlineIndex lineIndex;
+        private final KeyTable keyTable;
+        private final TableShapes tableShapes;
+
+        IncrementalDocument(TomlParseOptions options) {
+            this.options = options;
+            this.tableShapes = new TableShapes();
+            this.rootTable = new TomlTableBuilder(TomlTableBuilder.DefinedBy.KEY_IMPLICIT, this.tableShapes);
+            this.activeTable = this.rootTable;
+            this.lineIndex = options.sourceRanges() ? new NewlineIndex() : null;
+            this.keyTable = new KeyTable(options.symbolTable());
+        }
 
-            if (reader.isEndOfFile()) {
-                return rootTable.toTable();
+        /**
+         * Set up a reader to read part or all of this document with the
+         * options of the document.
+         * <p>
+         * Whether the source is retained is left to the caller, since it
+         * depends on whether anything else can modify the source.
+         */
+        private void configure(Reader reader) {
+            reader.isTrackingSourceRanges = options.sourceRanges();
+            reader.isDecodingScalarsLazily = options.lazyScalars();
+            reader.isDeferringScalarErrors = options.lazyScalars() && options.deferredScalarErrors();
+            reader.isCompactingDateTimes = options.compactDateTimes();
+            reader.symbolTable = options.symbolTable();
+            reader.keyTable = keyTable;
+            reader.tableShapes = tableShapes;
+            reader.lineIndex = lineIndex;
+        }
+
+        /**
+         * Parse a segment of UTF-8 encoded bytes.
+         *
+         * @param segment The bytes between the position and the limit of the
+         *                buffer are parsed.
+         * @param codePointIndex The index of the first code point of the
+         *                       segment within the document.
+         */
+        void parseSegment(ByteBuffer segment, int codePointIndex) {
+            var isSourceRetained = options.retainSource();
+            if (isSourceRetained) {
+                // The caller may reuse the segment once it's parsed, so
+                // values can only refer to a copy of it.
+                var copy = ByteBuffer.allocate(segment.remaining());
+                copy.put(segment).flip();
+                segment = copy;
             }
+            var reader = new Utf8Reader(segment, null);
+            configure(reader);
+            reader.isSourceRetained = isSourceRetained;
+            reader.codePointIndex = codePointIndex - 1;
+            try {
+                parseExpressions(reader);
+            } catch (IOException exception) {
+                // Utf8Reader only throws IOException when reading from a source
+                throw new UncheckedIOException(exception);
+            }
+        }
 
-            if (trySkipToNextLineOrEndOfFile(reader)) {
-                // Blank line
-            } else if (isBareKeyCodePoint(reader.codePoint) || reader.codePoint == '\"' || reader.codePoint == '\'') {
-                var keysValuePair = parseKeyValuePair(reader);
-                addKeysValuePair(activeTable, keysValuePair);
-            } else if (reader.codePoint == '[') {
-                reader.read();
+        TomlTable toTable() {
+            return this.rootTable.toTable();
+        }
+
+        private void parseExpressions(Reader reader) throws IOException {
+            reader.read();
 
-                if (reader.codePoint == '[') {
+            while (true) {
+                skipWhitespace(reader);
+
+                if (reader.isEndOfFile()) {
+                    return;
+                }
+
+                if (trySkipToNextLineOrEndOfFile(reader)) {
+                    // Blank line
+                } else if (isBareKeyCodePoint(reader.codePoint) || reader.codePoint == '\"' || reader.codePoint == '\'') {
+                    var keysValuePair = parseKeyValuePair(reader);
+                    addKeysValuePair(activeTable, keysValuePair);
+                } else if (reader.codePoint == '[') {
                     reader.read();
-                    skipWhitespace(reader);
 
-                    activeTable = rootTable;
+                    if (reader.codePoint == '[') {
+                        reader.read();
+                        skipWhitespace(reader);
 
-                    var keys = parseKeys(reader);
-                    for (var key : keys.subList(0, keys.size() - 1)) {
-                        activeTable = activeTable.getOrCreateSubTable(key, TomlTableBuilder.DefinedBy.TABLE_IMPLICIT);
-                    }
-                    activeTable = activeTable.createArraySubTable(keys.getLast());
+                        activeTable = rootTable;
 
-                    reader.skip(']');
-                    reader.skip(']');
-                    skipWhitespace(reader);
-                    skipToNextLine(reader);
-                } else {
-                    skipWhitespace(reader);
+                        var keys = parseKeys(reader);
+                        for (var key : keys.subList(0, keys.size() - 1)) {
+                            activeTable = activeTable.getOrCreateSubTable(key, TomlTableBuilder.DefinedBy.TABLE_IMPLICIT);
+                        }
+                        activeTable = activeTable.createArraySubTable(keys.getLast());
+
+                        reader.skip(']');
+                        reader.skip(']');
+                        skipWhitespace(reader);
+                        skipToNextLine(reader);
+                    } else {
+                        skipWhitespace(reader);
 
-                    activeTable = rootTable;
+                        activeTable = rootTable;
 
-                    var keys = parseKeys(reader);
-                    for (var key : keys.subList(0, keys.size() - 1)) {
-                        activeTable = activeTable.getOrCreateSubTable(key, TomlTableBuilder.DefinedBy.TABLE_IMPLICIT);
-                    }
-                    activeTable = activeTable.getOrCreateSubTable(keys.getLast(), TomlTableBuilder.DefinedBy.TABLE_EXPLICIT);
+                        var keys = parseKeys(reader);
+                        for (var key : keys.subList(0, keys.size() - 1)) {
+                            activeTable = activeTable.getOrCreateSubTable(key, TomlTableBuilder.DefinedBy.TABLE_IMPLICIT);
+                        }
+                        activeTable = activeTable.getOrCreateSubTable(keys.getLast(), TomlTableBuilder.DefinedBy.TABLE_EXPLICIT);
 
-                    reader.skip(']');
-                    skipWhitespace(reader);
-                    skipToNextLine(reader);
+                        reader.skip(']');
+                        skipWhitespace(reader);
+                        skipToNextLine(reader);
+                    }
+                } else {
+                    var position = reader.position();
+                    var sourceRange = reader.sourceRange(position, position);
+                    throw new TomlParseError(
+                        "TODO: " + formatCodePoint(reader.codePoint),
+                        sourceRange
+                    );
                 }
-            } else {
-                var position = reader.position();
-                var sourceRange = position.to(position);
-                throw new TomlParseError(
-                    "TODO: " + formatCodePoint(reader.codePoint),
-                    sourceRange
-                );
-            }
 
-            if (reader.isEndOfFile()) {
-                return rootTable.toTable();
+                if (reader.isEndOfFile()) {
+                    return;
+                }
             }
         }
     }
@@ -166,7 +428,7 @@ public class TomlParser {
             var keyStart = reader.position();
             var keyString = parseKey(reader);
             var keyEnd = reader.position();
-            var keySourceRange = keyStart.to(keyEnd);
+            var keySourceRange = reader.sourceRange(keyStart, keyEnd);
             var key = new TomlKey(keyString, keySourceRange);
 
             skipWhitespace(reader);
@@ -186,28 +448,27 @@ public class TomlParser {
 
     private static String parseKey(Reader reader) throws IOException {
         if (reader.codePoint == '\"') {
-            return parseBasicStringValue(reader, true);
+            var key = parseBasicStringValue(reader, true);
+            return reader.keyTable.get(key, 0, key.length());
         } else if (reader.codePoint == '\'') {
-            return parseLiteralStringValue(reader, true);
+            var key = parseLiteralStringValue(reader, true);
+            return reader.keyTable.get(key, 0, key.length());
         } else {
             var key = parseBareKey(reader);
             if (key.isPresent()) {
                 return key.get();
             } else {
-                throw new TomlMissingKeyError(reader.position().toSourceRange());
+                throw new TomlMissingKeyError(reader.positionSourceRange());
             }
         }
     }
 
     private static Optional<String> parseBareKey(Reader reader) throws IOException {
-        var key = new StringBuilder();
-        while (isBareKeyCodePoint(reader.codePoint)) {
-            reader.consume(key);
-        }
+        var key = reader.consumeKey(BARE_KEY_RUN);
         if (key.isEmpty()) {
             return Optional.empty();
         } else {
-            return Optional.of(key.toString());
+            return Optional.of(key);
         }
     }
 
@@ -215,7 +476,7 @@ public class TomlParser {
         if (reader.codePoint != '=') {
             throw new TomlKeyValuePairMissingEqualsSignError(
                 formatCodePoint(reader.codePoint),
-                reader.position().toSourceRange()
+                reader.positionSourceRange()
             );
         }
         reader.read();
@@ -237,32 +498,32 @@ public class TomlParser {
                 reader.codePoint == '_' ||
                 reader.codePoint == '.'
         ) {
-            return parseNumber(reader);
+            return parseNumber(reader, null);
         } else if (reader.codePoint == '"') {
             var start = reader.position();
 
             var string = parseBasicStringValue(reader, false);
 
             var end = reader.position();
-            var sourceRange = start.to(end);
+            var sourceRange = reader.valueSourceRange(start, end);
 
-            return new TomlString(string, sourceRange);
+            return toTomlString(reader, string, sourceRange);
         } else if (reader.codePoint == '\'') {
             var start = reader.position();
 
             var string = parseLiteralStringValue(reader, false);
 
             var end = reader.position();
-            var sourceRange = start.to(end);
+            var sourceRange = reader.valueSourceRange(start, end);
 
-            return new TomlString(string, sourceRange);
+            return toTomlString(reader, string, sourceRange);
         } else if (reader.codePoint == '[') {
             return parseArray(reader);
         } else if (reader.codePoint == '{') {
             return parseInlineTable(reader);
         } else {
             var position = reader.position();
-            var sourceRange = position.to(position);
+            var sourceRange = reader.sourceRange(position, position);
             throw new TomlUnspecifiedValueError(sourceRange);
         }
     }
@@ -273,9 +534,9 @@ public class TomlParser {
         reader.skip(new int[] {'t', 'r', 'u', 'e'});
 
         var end = reader.position();
-        var sourceRange = start.to(end);
+        var sourceRange = reader.valueSourceRange(start, end);
 
-        return new TomlBool(true, sourceRange);
+        return TomlBool.of(true, sourceRange);
     }
 
     private static TomlBool parseFalse(Reader reader) throws IOException {
@@ -284,9 +545,9 @@ public class TomlParser {
         reader.skip(new int[] {'f', 'a', 'l', 's', 'e'});
 
         var end = reader.position();
-        var sourceRange = start.to(end);
+        var sourceRange = reader.valueSourceRange(start, end);
 
-        return new TomlBool(false, sourceRange);
+        return TomlBool.of(false, sourceRange);
     }
 
     private static TomlFloat parseNan(Reader reader) throws IOException {
@@ -295,7 +556,7 @@ public class TomlParser {
         reader.skip(new int[] {'n', 'a', 'n'});
 
         var end = reader.position();
-        var sourceRange = start.to(end);
+        var sourceRange = reader.valueSourceRange(start, end);
 
         return new TomlFloat(Double.NaN, sourceRange);
     }
@@ -306,83 +567,347 @@ public class TomlParser {
         reader.skip(new int[] {'i', 'n', 'f'});
 
         var end = reader.position();
-        var sourceRange = start.to(end);
+        var sourceRange = reader.valueSourceRange(start, end);
 
         return new TomlFloat(Double.POSITIVE_INFINITY, sourceRange);
     }
 
-    private static TomlValue parseNumber(Reader reader) throws IOException {
+    /**
+     * @param elements The elements of the array that the number is an element
+     *                 of, or null if the number isn't an array element.
+     *                 Integers and floats that are decoded while parsing are
+     *                 added directly to the elements, and null is returned.
+     */
+    private static TomlValue parseNumber(
+        Reader reader,
+        ArrayElements elements
+    ) throws IOException {
         var start = reader.position();
 
-        var valueString = new StringBuilder();
+        var sign = 0;
+        // The integer is accumulated as a negative value, as in
+        // Long.parseLong(), so that Long.MIN_VALUE can be represented.
+        var value = 0L;
+        var digitCount = 0;
+        var isAfterDigit = false;
 
         if (reader.codePoint == '-' || reader.codePoint == '+') {
-            reader.consume(valueString);
+            sign = reader.codePoint;
+            reader.read();
 
             if (reader.codePoint == 'n') {
                 reader.skip(new int[] {'n', 'a', 'n'});
 
                 var end = reader.position();
-                var sourceRange = start.to(end);
+                var sourceRange = reader.valueSourceRange(start, end);
 
                 return new TomlFloat(Double.NaN, sourceRange);
             }
 
-            if (reader.codePoint == 'i' && valueString.charAt(0) == '-') {
+            if (reader.codePoint == 'i' && sign == '-') {
                 reader.skip(new int[] {'i', 'n', 'f'});
 
                 var end = reader.position();
-                var sourceRange = start.to(end);
+                var sourceRange = reader.valueSourceRange(start, end);
 
                 return new TomlFloat(Double.NEGATIVE_INFINITY, sourceRange);
             }
 
-            if (reader.codePoint == 'i' && valueString.charAt(0) == '+') {
+            if (reader.codePoint == 'i' && sign == '+') {
                 reader.skip(new int[] {'i', 'n', 'f'});
 
                 var end = reader.position();
-                var sourceRange = start.to(end);
+                var sourceRange = reader.valueSourceRange(start, end);
 
                 return new TomlFloat(Double.POSITIVE_INFINITY, sourceRange);
             }
         } else if (reader.codePoint == '0') {
-            reader.consume(valueString);
+            reader.read();
 
             if (reader.codePoint == 'b') {
                 reader.read();
+                return parseRadixInteger(reader, start, 2);
+            }
 
-                var intString = parseBinaryDigits(reader);
-
-                var end = reader.position();
-                var sourceRange = start.to(end);
+            if (reader.codePoint == 'o') {
+                reader.read();
+                return parseRadixInteger(reader, start, 8);
+            }
 
-                return parseIntegerString(intString, 2, sourceRange);
+            if (reader.codePoint == 'x') {
+                reader.read();
+                return parseRadixInteger(reader, start, 16);
             }
 
-            if (reader.codePoint == 'o') {
+            digitCount = 1;
+            isAfterDigit = true;
+        }
+
+        var isLeadingZero = digitCount == 1;
+        var limit = sign == '-' ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        while (true) {
+            if (isAsciiDigitCodePoint(reader.codePoint)) {
+                var digit = reader.codePoint - '0';
+                if (value < limit / 10 || value * 10 < limit + digit) {
+                    break;
+                }
+                if (digitCount == 0) {
+                    isLeadingZero = digit == 0;
+                }
+                value = value * 10 - digit;
+                digitCount += 1;
+                isAfterDigit = true;
                 reader.read();
+            } else if (reader.codePoint == '_') {
+                skipNumberUnderscore(reader, isAfterDigit, 10);
+                isAfterDigit = false;
+            } else {
+                break;
+            }
+        }
 
-                var intString = readOctalDigits(reader);
+        var isValidInteger = digitCount > 0 && !(isLeadingZero && digitCount > 1);
 
-                var end = reader.position();
-                var sourceRange = start.to(end);
+        if (
+            isValidInteger &&
+                (reader.codePoint == '.' || reader.codePoint == 'e' || reader.codePoint == 'E')
+        ) {
+            return parseFloat(reader, start, sign, value, digitCount, elements);
+        }
+
+        if (isNumberTextCodePoint(reader.codePoint)) {
+            var valueString = decimalText(reader, sign, value, digitCount, -1);
+            return parseNumberText(reader, start, valueString, false);
+        }
+
+        var end = reader.position();
+
+        if (!isValidInteger) {
+            throw new TomlInvalidNumberError(
+                decimalText(reader, sign, value, digitCount, -1).toString(),
+                reader.sourceRange(start, end)
+            );
+        }
+
+        var integer = sign == '-' ? value : -value;
+        var sourceRange = reader.valueSourceRange(start, end);
+        if (elements != null) {
+            elements.addLong(integer, sourceRange);
+            return null;
+        }
+        return TomlInt.of(integer, sourceRange);
+    }
+
+    /**
+     * Parse a float after the integer part has been read.
+     *
+     * @param negativeIntegerPart The negated value of the integer part.
+     * @param elements As for {@link #parseNumber(Reader, ArrayElements)}.
+     */
+    private static TomlValue parseFloat(
+        Reader reader,
+        SourcePosition start,
+        int sign,
+        long negativeIntegerPart,
+        int integerDigitCount,
+        ArrayElements elements
+    ) throws IOException {
+        // As with integers, the significand is accumulated as a negative
+        // value. Anything other than a significand and exponent that fit is
+        // left to parseNumberText().
+        var significand = negativeIntegerPart;
+        var limit = sign == '-' ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        var fractionDigitCount = -1;
 
-                return parseIntegerString(intString, 8, sourceRange);
+        if (reader.codePoint == '.') {
+            reader.read();
+            fractionDigitCount = 0;
+            var isAfterDigit = false;
+            while (true) {
+                if (isAsciiDigitCodePoint(reader.codePoint)) {
+                    var digit = reader.codePoint - '0';
+                    if (significand < limit / 10 || significand * 10 < limit + digit) {
+                        var valueString = decimalText(reader, sign, significand, integerDigitCount, fractionDigitCount);
+                        return parseNumberText(reader, start, valueString, true);
+                    }
+                    significand = significand * 10 - digit;
+                    fractionDigitCount += 1;
+                    isAfterDigit = true;
+                    reader.read();
+                } else if (reader.codePoint == '_') {
+                    skipNumberUnderscore(reader, isAfterDigit, 10);
+                    isAfterDigit = false;
+                } else {
+                    break;
+                }
             }
 
-            if (reader.codePoint == 'x') {
+            if (fractionDigitCount == 0) {
+                var valueString = decimalText(reader, sign, significand, integerDigitCount, fractionDigitCount);
+                return parseNumberText(reader, start, valueString, true);
+            }
+        }
+
+        var exponentCodePoint = 0;
+        var exponentSign = 0;
+        var exponent = 0;
+        var exponentDigitCount = 0;
+
+        if (reader.codePoint == 'e' || reader.codePoint == 'E') {
+            exponentCodePoint = reader.codePoint;
+            reader.read();
+            if (reader.codePoint == '-' || reader.codePoint == '+') {
+                exponentSign = reader.codePoint;
                 reader.read();
+            }
+
+            var isAfterDigit = false;
+            while (true) {
+                if (isAsciiDigitCodePoint(reader.codePoint) && exponentDigitCount < 9) {
+                    exponent = exponent * 10 + reader.codePoint - '0';
+                    exponentDigitCount += 1;
+                    isAfterDigit = true;
+                    reader.read();
+                } else if (reader.codePoint == '_') {
+                    skipNumberUnderscore(reader, isAfterDigit, 10);
+                    isAfterDigit = false;
+                } else {
+                    break;
+                }
+            }
+        }
 
-                var intString = readHexDigits(reader);
+        if (
+            isNumberTextCodePoint(reader.codePoint) ||
+                (exponentCodePoint != 0 && exponentDigitCount == 0)
+        ) {
+            var valueString = decimalText(reader, sign, significand, integerDigitCount, fractionDigitCount);
+            appendExponentText(valueString, exponentCodePoint, exponentSign, exponent, exponentDigitCount);
+            return parseNumberText(reader, start, valueString, true);
+        }
 
-                var end = reader.position();
-                var sourceRange = start.to(end);
+        var end = reader.position();
+
+        var isNegative = sign == '-';
+        var magnitude = -significand;
+        var decimalExponent = (exponentSign == '-' ? -exponent : exponent) -
+            Math.max(fractionDigitCount, 0);
+
+        // Floats in arrays are decoded while parsing, so that the array can
+        // store them as doubles.
+        if (reader.isDecodingScalarsLazily && elements == null) {
+            return TomlFloat.lazy(
+                isNegative,
+                magnitude,
+                decimalExponent,
+                reader.valueSourceRange(start, end)
+            );
+        }
+        var value = TomlFloat.decimalToDouble(isNegative, magnitude, decimalExponent);
+        var sourceRange = reader.valueSourceRange(start, end);
+        if (elements != null) {
+            elements.addDouble(value, sourceRange);
+            return null;
+        }
+        return new TomlFloat(value, sourceRange);
+    }
+
+    /**
+     * Create a supplier that throws the error that the parser would have
+     * thrown for a date or time that's out of range, so that the error is
+     * only thrown when the value is first needed.
+     */
+    private static <T> Supplier<T> deferredError(
+        Reader reader,
+        SourcePosition start,
+        SourcePosition end,
+        CharSequence valueString,
+        BiFunction<String, SourceRange, TomlParseError> error
+    ) {
+        var text = valueString.toString();
+        var errorSourceRange = reader.sourceRange(start, end);
+        return () -> {
+            throw error.apply(text, errorSourceRange);
+        };
+    }
+
+    /**
+     * Whether the code point would continue a number that's being parsed as
+     * text by parseNumberText().
+     */
+    private static boolean isNumberTextCodePoint(int codePoint) {
+        return isAsciiDigitCodePoint(codePoint) ||
+            codePoint == 'e' ||
+            codePoint == 'E' ||
+            codePoint == '.' ||
+            codePoint == '-' ||
+            codePoint == ':';
+    }
+
+    /**
+     * Reproduce the text of a decimal number from its accumulated digits,
+     * without underscores.
+     *
+     * @param negativeSignificand The negated value of the digits.
+     * @param fractionDigitCount The number of digits after the decimal point,
+     *                           or -1 if there is no decimal point.
+     */
+    private static StringBuilder decimalText(
+        Reader reader,
+        int sign,
+        long negativeSignificand,
+        int integerDigitCount,
+        int fractionDigitCount
+    ) {
+        var valueString = reader.valueText();
+        if (sign != 0) {
+            valueString.appendCodePoint(sign);
+        }
+        var integerStart = valueString.length();
+        appendIntegerDigits(
+            valueString,
+            negativeSignificand,
+            integerDigitCount + Math.max(fractionDigitCount, 0),
+            10,
+            0
+        );
+        if (fractionDigitCount >= 0) {
+            valueString.insert(integerStart + integerDigitCount, '.');
+        }
+        return valueString;
+    }
 
-                return parseIntegerString(intString, 16, sourceRange);
+    private static void appendExponentText(
+        StringBuilder valueString,
+        int exponentCodePoint,
+        int exponentSign,
+        int exponent,
+        int exponentDigitCount
+    ) {
+        if (exponentCodePoint != 0) {
+            valueString.appendCodePoint(exponentCodePoint);
+            if (exponentSign != 0) {
+                valueString.appendCodePoint(exponentSign);
             }
+            appendIntegerDigits(valueString, -exponent, exponentDigitCount, 10, 0);
         }
+    }
 
-        var isFloat = false;
+    /**
+     * Parse the remainder of a number that can't be accumulated as an
+     * integer, such as a float, a date or time, or an integer that doesn't
+     * fit in a long.
+     *
+     * @param valueString The number read so far, without underscores.
+     * @param isFloat Whether the number read so far has a decimal point or
+     *                exponent.
+     */
+    private static TomlValue parseNumberText(
+        Reader reader,
+        SourcePosition start,
+        StringBuilder valueString,
+        boolean isFloat
+    ) throws IOException {
         while (true) {
             if (reader.codePoint == 'e' || reader.codePoint == 'E') {
                 reader.consume(valueString);
@@ -391,13 +916,11 @@ public class TomlParser {
                 }
                 isFloat = true;
             } else if (reader.codePoint == '_') {
-                readNumberUnderscore(
-                    reader,
-                    valueString,
-                    TomlParser::isAsciiDigitCodePoint
-                );
+                var isAfterDigit = !valueString.isEmpty() &&
+                    isAsciiDigitCodePoint(valueString.charAt(valueString.length() - 1));
+                skipNumberUnderscore(reader, isAfterDigit, 10);
             } else if (isAsciiDigitCodePoint(reader.codePoint)) {
-                reader.consume(valueString);
+                reader.consume(valueString, DECIMAL_DIGIT_RUN);
             } else if (reader.codePoint == '.') {
                 reader.consume(valueString);
                 isFloat = true;
@@ -422,29 +945,19 @@ public class TomlParser {
                     // This could be ignorable whitespace, in which case we have
                     // a local date, or the separator between the date and time.
                     var end = reader.position();
+                    var sourceEnd = reader.sourceOffset();
                     reader.read();
                     if (isAsciiDigitCodePoint(reader.codePoint)) {
                         valueString.appendCodePoint('T');
                     } else {
-                        var value = LocalDate.parse(valueString.toString());
-                        var sourceRange = start.to(end);
-                        return new TomlLocalDate(value, sourceRange);
+                        return localDateValue(reader, start, end, sourceEnd, valueString);
                     }
                 } else if (reader.codePoint == 'T' || reader.codePoint == 't') {
                     reader.consume(valueString);
                 } else {
                     var end = reader.position();
-                    var sourceRange = start.to(end);
-                    var localDateString = valueString.toString();
-                    try {
-                        var value = LocalDate.parse(localDateString);
-                        return new TomlLocalDate(value, sourceRange);
-                    } catch (DateTimeParseException exception) {
-                        throw new TomlInvalidLocalDateError(
-                            localDateString,
-                            sourceRange
-                        );
-                    }
+                    var sourceEnd = reader.sourceOffset();
+                    return localDateValue(reader, start, end, sourceEnd, valueString);
                 }
 
                 readTime(reader, valueString);
@@ -453,30 +966,12 @@ public class TomlParser {
                 var isOffset = readDateTimeOffset(reader, valueString);
 
                 var end = reader.position();
-                var sourceRange = start.to(end);
+                var sourceEnd = reader.sourceOffset();
 
                 if (isOffset) {
-                    var offsetDateTimeString = valueString.toString();
-                    try {
-                        var value = OffsetDateTime.parse(offsetDateTimeString);
-                        return new TomlOffsetDateTime(value, sourceRange);
-                    } catch (DateTimeParseException exception) {
-                        throw new TomlInvalidOffsetDateTimeError(
-                            offsetDateTimeString,
-                            sourceRange
-                        );
-                    }
+                    return offsetDateTimeValue(reader, start, end, sourceEnd, valueString);
                 } else {
-                    var localDateTimeString = valueString.toString();
-                    try {
-                        var value = LocalDateTime.parse(localDateTimeString);
-                        return new TomlLocalDateTime(value, sourceRange);
-                    } catch (DateTimeParseException exception) {
-                        throw new TomlInvalidLocalDateTimeError(
-                            localDateTimeString,
-                            sourceRange
-                        );
-                    }
+                    return localDateTimeValue(reader, start, end, sourceEnd, valueString);
                 }
             } else if (reader.codePoint == ':') {
                 reader.consume(valueString);
@@ -484,72 +979,407 @@ public class TomlParser {
                 readTimeFromMinutes(reader, valueString);
 
                 var end = reader.position();
-                var sourceRange = start.to(end);
-                var localTimeString = valueString.toString();
-                try {
-                    var value = LocalTime.parse(localTimeString);
-                    return new TomlLocalTime(value, sourceRange);
-                } catch (DateTimeParseException exception) {
-                    throw new TomlInvalidLocalTimeError(
-                        localTimeString,
-                        sourceRange
-                    );
-                }
+                var sourceEnd = reader.sourceOffset();
+                return localTimeValue(reader, start, end, sourceEnd, valueString);
             } else {
                 break;
             }
         }
 
         var end = reader.position();
-        var sourceRange = start.to(end);
 
         var numberString = valueString.toString();
         if (numberStringHasLeadingZeroes(numberString)) {
             throw new TomlInvalidNumberError(
                 numberString,
-                sourceRange
+                reader.sourceRange(start, end)
             );
         }
 
         if (isFloat) {
-            return parseFloatString(numberString, sourceRange);
+            return parseFloatString(numberString, reader, start, end);
         } else {
-            return parseIntegerString(numberString, 10, sourceRange);
+            return parseIntegerString(numberString, reader, start, end);
         }
     }
 
-    private static void readNumberUnderscore(
-        Reader reader,
-        StringBuilder valueString,
-        Predicate<Integer> isDigit
-    ) throws IOException {
-        var sourceRange = reader.codePointSourceRange();
-        if (valueString.isEmpty()) {
-            throw new TomlUnderscoreInNumberMustBeSurroundedByDigits(sourceRange);
-        }
-
-        var previousCharacter = valueString.charAt(valueString.length() - 1);
-        if (!isDigit.test((int) previousCharacter)) {
-            throw new TomlUnderscoreInNumberMustBeSurroundedByDigits(sourceRange);
-        }
-        reader.skip('_');
-        if (!isDigit.test(reader.codePoint)) {
-            throw new TomlUnderscoreInNumberMustBeSurroundedByDigits(sourceRange);
+    /**
+     * The text of a date or time that is decoded lazily. When the source is
+     * retained and has the same text, this is a view of the source, rather
+     * than a copy. The source may differ, for instance when a space
+     * separates the date and time.
+     *
+     * @param sourceEnd The offset of the end of the value in the source, or
+     *                  -1 if the source can't be sliced.
+     */
+    private static CharSequence dateTimeText(Reader reader, int sourceEnd, StringBuilder valueString) {
+        var sourceStart = sourceEnd - valueString.length();
+        if (sourceEnd >= 0 && sourceStart >= 0) {
+            var slice = reader.sourceSlice(sourceStart, sourceEnd);
+            if (CharSequence.compare(slice, valueString) == 0) {
+                return slice;
+            }
         }
+        return valueString.toString();
     }
 
-    private static boolean numberStringHasLeadingZeroes(String number) {
-        if (number.length() > 1 && number.charAt(0) == '0' && isAsciiDigitCodePoint(number.charAt(1))) {
-            return true;
-        }
-
-        if (number.length() <= 2) {
-            return false;
+    private static TomlLocalDate localDateValue(
+        Reader reader,
+        SourcePosition start,
+        SourcePosition end,
+        int sourceEnd,
+        StringBuilder valueString
+    ) {
+        var decoder = reader.dateTimeDecoder;
+        if (decoder.readLocalDate(valueString)) {
+            var sourceRange = reader.valueSourceRange(start, end);
+            if (decoder.isDateInRange()) {
+                if (reader.isCompactingDateTimes) {
+                    return TomlLocalDate.compact(decoder.year, decoder.month, decoder.day, sourceRange);
+                } else if (reader.isDecodingScalarsLazily) {
+                    var text = dateTimeText(reader, sourceEnd, valueString);
+                    return TomlLocalDate.lazy(
+                        () -> {
+                            var textDecoder = new DateTimeDecoder();
+                            textDecoder.readLocalDate(text);
+                            return textDecoder.toLocalDate();
+                        },
+                        sourceRange
+                    );
+                } else {
+                    return new TomlLocalDate(decoder.toLocalDate(), sourceRange);
+                }
+            } else if (reader.isDeferringScalarErrors) {
+                return TomlLocalDate.lazy(
+                    deferredError(reader, start, end, valueString, TomlInvalidLocalDateError::new),
+                    sourceRange
+                );
+            }
         }
 
-        var hasSign = number.charAt(0) == '+' || number.charAt(0) == '-';
-        if (hasSign && number.charAt(1) == '0' && isAsciiDigitCodePoint(number.charAt(2))) {
-            return true;
+        var localDateString = valueString.toString();
+        LocalDate value;
+        try {
+            value = LocalDate.parse(localDateString);
+        } catch (DateTimeParseException exception) {
+            throw new TomlInvalidLocalDateError(
+                localDateString,
+                reader.sourceRange(start, end)
+            );
+        }
+        var sourceRange = reader.valueSourceRange(start, end);
+        return reader.isCompactingDateTimes
+            ? TomlLocalDate.compact(value, sourceRange)
+            : new TomlLocalDate(value, sourceRange);
+    }
+
+    private static TomlLocalDateTime localDateTimeValue(
+        Reader reader,
+        SourcePosition start,
+        SourcePosition end,
+        int sourceEnd,
+        StringBuilder valueString
+    ) {
+        var decoder = reader.dateTimeDecoder;
+        if (decoder.readLocalDateTime(valueString)) {
+            var sourceRange = reader.valueSourceRange(start, end);
+            if (decoder.isDateInRange() && decoder.isTimeInRange()) {
+                if (reader.isCompactingDateTimes) {
+                    return TomlLocalDateTime.compact(
+                        decoder.year,
+                        decoder.month,
+                        decoder.day,
+                        decoder.hour,
+                        decoder.minute,
+                        decoder.second,
+                        decoder.nano,
+                        sourceRange
+                    );
+                } else if (reader.isDecodingScalarsLazily) {
+                    var text = dateTimeText(reader, sourceEnd, valueString);
+                    return TomlLocalDateTime.lazy(
+                        () -> {
+                            var textDecoder = new DateTimeDecoder();
+                            textDecoder.readLocalDateTime(text);
+                            return textDecoder.toLocalDateTime();
+                        },
+                        sourceRange
+                    );
+                } else {
+                    return new TomlLocalDateTime(decoder.toLocalDateTime(), sourceRange);
+                }
+            } else if (reader.isDeferringScalarErrors) {
+                return TomlLocalDateTime.lazy(
+                    deferredError(reader, start, end, valueString, TomlInvalidLocalDateTimeError::new),
+                    sourceRange
+                );
+            }
+        }
+
+        var localDateTimeString = valueString.toString();
+        LocalDateTime value;
+        try {
+            value = LocalDateTime.parse(localDateTimeString);
+        } catch (DateTimeParseException exception) {
+            throw new TomlInvalidLocalDateTimeError(
+                localDateTimeString,
+                reader.sourceRange(start, end)
+            );
+        }
+        var sourceRange = reader.valueSourceRange(start, end);
+        return reader.isCompactingDateTimes
+            ? TomlLocalDateTime.compact(value, sourceRange)
+            : new TomlLocalDateTime(value, sourceRange);
+    }
+
+    private static TomlOffsetDateTime offsetDateTimeValue(
+        Reader reader,
+        SourcePosition start,
+        SourcePosition end,
+        int sourceEnd,
+        StringBuilder valueString
+    ) {
+        var decoder = reader.dateTimeDecoder;
+        if (decoder.readOffsetDateTime(valueString)) {
+            var sourceRange = reader.valueSourceRange(start, end);
+            if (decoder.isDateInRange() && decoder.isTimeInRange() && decoder.isOffsetInRange()) {
+                if (reader.isCompactingDateTimes) {
+                    return TomlOffsetDateTime.compact(
+                        decoder.year,
+                        decoder.month,
+                        decoder.day,
+                        decoder.hour,
+                        decoder.minute,
+                        decoder.second,
+                        decoder.nano,
+                        decoder.offsetTotalSeconds(),
+                        sourceRange
+                    );
+                } else if (reader.isDecodingScalarsLazily) {
+                    var text = dateTimeText(reader, sourceEnd, valueString);
+                    return TomlOffsetDateTime.lazy(
+                        () -> {
+                            var textDecoder = new DateTimeDecoder();
+                            textDecoder.readOffsetDateTime(text);
+                            return textDecoder.toOffsetDateTime();
+                        },
+                        sourceRange
+                    );
+                } else {
+                    return new TomlOffsetDateTime(decoder.toOffsetDateTime(), sourceRange);
+                }
+            } else if (reader.isDeferringScalarErrors) {
+                return TomlOffsetDateTime.lazy(
+                    deferredError(reader, start, end, valueString, TomlInvalidOffsetDateTimeError::new),
+                    sourceRange
+                );
+            }
+        }
+
+        var offsetDateTimeString = valueString.toString();
+        OffsetDateTime value;
+        try {
+            value = OffsetDateTime.parse(offsetDateTimeString);
+        } catch (DateTimeParseException exception) {
+            throw new TomlInvalidOffsetDateTimeError(
+                offsetDateTimeString,
+                reader.sourceRange(start, end)
+            );
+        }
+        var sourceRange = reader.valueSourceRange(start, end);
+        return reader.isCompactingDateTimes
+            ? TomlOffsetDateTime.compact(value, sourceRange)
+            : new TomlOffsetDateTime(value, sourceRange);
+    }
+
+    private static TomlLocalTime localTimeValue(
+        Reader reader,
+        SourcePosition start,
+        SourcePosition end,
+        int sourceEnd,
+        StringBuilder valueString
+    ) {
+        var decoder = reader.dateTimeDecoder;
+        if (decoder.readLocalTime(valueString)) {
+            var sourceRange = reader.valueSourceRange(start, end);
+            if (decoder.isTimeInRange()) {
+                if (reader.isCompactingDateTimes) {
+                    return TomlLocalTime.compact(
+                        decoder.hour,
+                        decoder.minute,
+                        decoder.second,
+                        decoder.nano,
+                        sourceRange
+                    );
+                } else if (reader.isDecodingScalarsLazily) {
+                    var text = dateTimeText(reader, sourceEnd, valueString);
+                    return TomlLocalTime.lazy(
+                        () -> {
+                            var textDecoder = new DateTimeDecoder();
+                            textDecoder.readLocalTime(text);
+                            return textDecoder.toLocalTime();
+                        },
+                        sourceRange
+                    );
+                } else {
+                    return new TomlLocalTime(decoder.toLocalTime(), sourceRange);
+                }
+            } else if (reader.isDeferringScalarErrors) {
+                return TomlLocalTime.lazy(
+                    deferredError(reader, start, end, valueString, TomlInvalidLocalTimeError::new),
+                    sourceRange
+                );
+            }
+        }
+
+        var localTimeString = valueString.toString();
+        LocalTime value;
+        try {
+            value = LocalTime.parse(localTimeString);
+        } catch (DateTimeParseException exception) {
+            throw new TomlInvalidLocalTimeError(
+                localTimeString,
+                reader.sourceRange(start, end)
+            );
+        }
+        var sourceRange = reader.valueSourceRange(start, end);
+        return reader.isCompactingDateTimes
+            ? TomlLocalTime.compact(value, sourceRange)
+            : new TomlLocalTime(value, sourceRange);
+    }
+
+    /**
+     * Parse an integer in the given radix, after the prefix has been read.
+     */
+    private static TomlInt parseRadixInteger(
+        Reader reader,
+        SourcePosition start,
+        int radix
+    ) throws IOException {
+        var value = 0L;
+        var digitCount = 0;
+        // The case of each digit, with the last digit in the lowest bit, so
+        // that the digits can be reproduced if the integer is invalid.
+        var upperCaseDigits = 0L;
+        var isAfterDigit = false;
+        StringBuilder overflowString = null;
+
+        while (true) {
+            var digit = asciiDigitValue(reader.codePoint, radix);
+            if (digit >= 0) {
+                if (overflowString == null && value > (Long.MAX_VALUE - digit) / radix) {
+                    overflowString = new StringBuilder();
+                    appendIntegerDigits(overflowString, -value, digitCount, radix, upperCaseDigits);
+                }
+
+                if (overflowString == null) {
+                    value = value * radix + digit;
+                    digitCount += 1;
+                    upperCaseDigits = (upperCaseDigits << 1) | (reader.codePoint >= 'A' && reader.codePoint <= 'F' ? 1 : 0);
+                } else {
+                    overflowString.appendCodePoint(reader.codePoint);
+                }
+                isAfterDigit = true;
+                reader.read();
+            } else if (reader.codePoint == '_') {
+                skipNumberUnderscore(reader, isAfterDigit, radix);
+                isAfterDigit = false;
+            } else {
+                break;
+            }
+        }
+
+        var end = reader.position();
+
+        if (overflowString != null) {
+            throw new TomlInvalidNumberError(overflowString.toString(), reader.sourceRange(start, end));
+        } else if (digitCount == 0) {
+            throw new TomlInvalidNumberError("", reader.sourceRange(start, end));
+        }
+
+        return TomlInt.of(value, reader.valueSourceRange(start, end));
+    }
+
+    /**
+     * Append the digits of an accumulated integer, including any leading
+     * zeroes.
+     *
+     * @param negativeValue The negated value of the digits.
+     * @param upperCaseDigits A bit set of the digits to write in upper case,
+     *                        with the last digit in the lowest bit.
+     */
+    private static void appendIntegerDigits(
+        StringBuilder builder,
+        long negativeValue,
+        int digitCount,
+        int radix,
+        long upperCaseDigits
+    ) {
+        var digits = new char[digitCount];
+        var remaining = negativeValue;
+        for (var index = digitCount - 1; index >= 0; index--) {
+            var digit = Character.forDigit((int) -(remaining % radix), radix);
+            remaining /= radix;
+
+            var digitPosition = digitCount - 1 - index;
+            if (digitPosition < 64 && ((upperCaseDigits >>> digitPosition) & 1) != 0) {
+                digit = Character.toUpperCase(digit);
+            }
+            digits[index] = digit;
+        }
+        builder.append(digits);
+    }
+
+    private static void skipNumberUnderscore(
+        Reader reader,
+        boolean isAfterDigit,
+        int radix
+    ) throws IOException {
+        var underscoreIndex = reader.codePointIndex;
+        if (isAfterDigit) {
+            reader.skip('_');
+            if (asciiDigitValue(reader.codePoint, radix) >= 0) {
+                return;
+            }
+        }
+
+        var sourceRange = reader.sourceRange(
+            new SourcePosition(underscoreIndex),
+            new SourcePosition(underscoreIndex + 1)
+        );
+        throw new TomlUnderscoreInNumberMustBeSurroundedByDigits(sourceRange);
+    }
+
+    /**
+     * The value of an ASCII digit in the given radix, or -1 if the code point
+     * isn't such a digit.
+     */
+    private static int asciiDigitValue(int codePoint, int radix) {
+        int digit;
+        if (codePoint >= '0' && codePoint <= '9') {
+            digit = codePoint - '0';
+        } else if (codePoint >= 'a' && codePoint <= 'f') {
+            digit = codePoint - 'a' + 10;
+        } else if (codePoint >= 'A' && codePoint <= 'F') {
+            digit = codePoint - 'A' + 10;
+        } else {
+            return -1;
+        }
+        return digit < radix ? digit : -1;
+    }
+
+    private static boolean numberStringHasLeadingZeroes(String number) {
+        if (number.length() > 1 && number.charAt(0) == '0' && isAsciiDigitCodePoint(number.charAt(1))) {
+            return true;
+        }
+
+        if (number.length() <= 2) {
+            return false;
+        }
+
+        var hasSign = number.charAt(0) == '+' || number.charAt(0) == '-';
+        if (hasSign && number.charAt(1) == '0' && isAsciiDigitCodePoint(number.charAt(2))) {
+            return true;
         }
 
         return false;
@@ -615,119 +1445,76 @@ public class TomlParser {
         }
     }
 
-    private static String parseBinaryDigits(Reader reader) throws IOException {
-        var numberString = new StringBuilder();
-        while (true) {
-            if (isBinaryDigitCodePoint(reader.codePoint)) {
-                reader.consume(numberString);
-            } else if (reader.codePoint == '_') {
-                readNumberUnderscore(
-                    reader,
-                    numberString,
-                    TomlParser::isBinaryDigitCodePoint
-                );
-            } else {
-                return numberString.toString();
-            }
-        }
-    }
-
-    private static boolean isBinaryDigitCodePoint(int codePoint) {
-        return codePoint == '0' || codePoint == '1';
-    }
-
-    private static String readOctalDigits(Reader reader) throws IOException {
-        var numberString = new StringBuilder();
-        while (true) {
-            if (isOctalDigitCodePoint(reader.codePoint)) {
-                reader.consume(numberString);
-            } else if (reader.codePoint == '_') {
-                readNumberUnderscore(
-                    reader,
-                    numberString,
-                    TomlParser::isOctalDigitCodePoint
-                );
-            } else {
-                return numberString.toString();
-            }
-        }
-    }
-
-    private static boolean isOctalDigitCodePoint(int codePoint) {
-        return codePoint >= '0' && codePoint <= '7';
-    }
-
-    private static String readHexDigits(Reader reader) throws IOException {
-        var numberString = new StringBuilder();
-        while (true) {
-            if (isHexDigitCodePoint(reader.codePoint)) {
-                reader.consume(numberString);
-            } else if (reader.codePoint == '_') {
-                readNumberUnderscore(
-                    reader,
-                    numberString,
-                    TomlParser::isHexDigitCodePoint
-                );
-            } else {
-                return numberString.toString();
-            }
-        }
-    }
-
-    private static boolean isHexDigitCodePoint(int codePoint) {
-        return (codePoint >= '0' && codePoint <= '9') ||
-            (codePoint >= 'a' && codePoint <= 'f') ||
-            (codePoint >= 'A' && codePoint <= 'F');
-    }
-
-    private static TomlFloat parseFloatString(String numberString, SourceRange sourceRange) {
+    private static TomlFloat parseFloatString(
+        String numberString,
+        Reader reader,
+        SourcePosition start,
+        SourcePosition end
+    ) {
         for (var index = 0; index < numberString.length(); index++) {
             if (numberString.charAt(index) == '.') {
                 if (index == 0 || index == numberString.length() - 1) {
-                    throw new TomlInvalidNumberError(numberString, sourceRange);
+                    throw new TomlInvalidNumberError(numberString, reader.sourceRange(start, end));
                 }
 
                 var previousCharacter = numberString.charAt(index - 1);
                 if (!isAsciiDigitCodePoint(previousCharacter)) {
-                    throw new TomlInvalidNumberError(numberString, sourceRange);
+                    throw new TomlInvalidNumberError(numberString, reader.sourceRange(start, end));
                 }
 
                 var nextCharacter = numberString.charAt(index + 1);
                 if (!isAsciiDigitCodePoint(nextCharacter)) {
-                    throw new TomlInvalidNumberError(numberString, sourceRange);
+                    throw new TomlInvalidNumberError(numberString, reader.sourceRange(start, end));
                 }
             }
         }
 
         try {
             var value = Double.parseDouble(numberString);
-            return new TomlFloat(value, sourceRange);
+            return new TomlFloat(value, reader.valueSourceRange(start, end));
         } catch (NumberFormatException exception) {
             throw new TomlInvalidNumberError(
                 numberString,
-                sourceRange
+                reader.sourceRange(start, end)
             );
         }
     }
 
-    private static TomlInt parseIntegerString(String integerString, int base, SourceRange sourceRange) {
+    private static TomlInt parseIntegerString(
+        String integerString,
+        Reader reader,
+        SourcePosition start,
+        SourcePosition end
+    ) {
         try {
-            var value = Long.parseLong(integerString, base);
-            return new TomlInt(value, sourceRange);
+            var value = Long.parseLong(integerString);
+            return TomlInt.of(value, reader.valueSourceRange(start, end));
         } catch (NumberFormatException exception) {
-            throw new TomlInvalidNumberError(integerString, sourceRange);
+            throw new TomlInvalidNumberError(integerString, reader.sourceRange(start, end));
         }
     }
 
-    private static String parseBasicStringValue(Reader reader, boolean isKey) throws IOException {
+    private static TomlString toTomlString(Reader reader, CharSequence value, SourceRange sourceRange) {
+        var length = reader.symbolTable == null ? -1 : value.length();
+        if (reader.symbolTable != null && length <= TomlSymbolTable.MAX_STRING_VALUE_LENGTH) {
+            var string = reader.symbolTable.get(value, 0, length, KeyTable.hash(value, 0, length));
+            return new TomlString(string, sourceRange);
+        } else if (value instanceof String string) {
+            return new TomlString(string, sourceRange);
+        } else {
+            return TomlString.lazy(value, sourceRange);
+        }
+    }
+
+    private static CharSequence parseBasicStringValue(Reader reader, boolean isKey) throws IOException {
         return parseStringValue(reader, '"', true, isKey);
     }
 
-    private static String parseLiteralStringValue(Reader reader, boolean isKey) throws IOException {
+    private static CharSequence parseLiteralStringValue(Reader reader, boolean isKey) throws IOException {
         return parseStringValue(reader, '\'', false, isKey);
     }
 
-    private static String parseStringValue(
+    private static CharSequence parseStringValue(
         Reader reader,
         char quote,
         boolean allowEscaping,
@@ -737,7 +1524,6 @@ public class TomlParser {
 
         var isMultiLine = false;
 
-        var string = new StringBuilder();
         if (reader.codePoint == quote) {
             reader.read();
 
@@ -746,7 +1532,7 @@ public class TomlParser {
                     var start = reader.position();
                     reader.read();
                     var end = reader.position();
-                    var sourceRange = start.to(end);
+                    var sourceRange = reader.sourceRange(start, end);
                     throw new TomlKeyCannotBeMultiLineStringError(sourceRange);
                 }
                 reader.read();
@@ -758,6 +1544,18 @@ public class TomlParser {
             }
         }
 
+        var string = new StringBuilder();
+        if (!isMultiLine) {
+            // Most strings have no escape sequences, so can be read as a
+            // single slice of the source.
+            var slice = reader.consumeSlice(allowEscaping ? BASIC_STRING_RUN : LITERAL_STRING_RUN);
+            if (reader.codePoint == quote) {
+                reader.read();
+                return slice;
+            }
+            string.append(slice.toString());
+        }
+
         while (true) {
             if (reader.codePoint == quote) {
                 reader.read();
@@ -848,7 +1646,7 @@ public class TomlParser {
                         sourceRange
                     );
                 } else {
-                    reader.consume(string);
+                    reader.consumeNewline(string);
                 }
             } else if (
                 isControlCharacter(reader.codePoint) && !(
@@ -860,15 +1658,18 @@ public class TomlParser {
                 var start = reader.position();
                 reader.read();
                 var end = reader.position();
-                var sourceRange = start.to(end);
+                var sourceRange = reader.sourceRange(start, end);
                 throw new TomlUnexpectedControlCharacterError(
                     controlCharacter,
                     sourceRange
                 );
             } else if (reader.isEndOfFile()) {
-                throw new TomlUnclosedStringError(reader.position().toSourceRange());
+                throw new TomlUnclosedStringError(reader.positionSourceRange());
+            } else if (reader.codePoint == '\n') {
+                reader.consumeNewline(string);
             } else {
                 reader.consume(string);
+                reader.consume(string, allowEscaping ? BASIC_STRING_RUN : LITERAL_STRING_RUN);
             }
         }
     }
@@ -906,7 +1707,7 @@ public class TomlParser {
         // Check for surrogates or values above the maximum Unicode codepoint
         if ((codePoint >= 0xd800 && codePoint <= 0xdfff) || codePoint > 0x10ffff || codePoint < 0) {
             var end = reader.position();
-            var sourceRange = start.to(end);
+            var sourceRange = reader.sourceRange(start, end);
 
             throw new TomlInvalidEscapeSequenceError(sourceRange);
         }
@@ -916,11 +1717,10 @@ public class TomlParser {
     private static TomlValue parseArray(Reader reader) throws IOException {
         reader.skip('[');
         skipArrayWhitespace(reader);
-        var elements = new ArrayList<TomlValue>();
+        var elements = new ArrayElements();
         while (reader.codePoint != ']') {
-            var element = parseValue(reader);
+            parseArrayElement(reader, elements);
             skipArrayWhitespace(reader);
-            elements.add(element);
 
             if (reader.codePoint == ',') {
                 reader.read();
@@ -931,11 +1731,39 @@ public class TomlParser {
         }
 
         reader.skip(']');
-        return TomlArray.of(elements);
+        return elements.toArray();
+    }
+
+    private static void parseArrayElement(
+        Reader reader,
+        ArrayElements elements
+    ) throws IOException {
+        if (reader.codePoint == 't') {
+            var start = reader.position();
+            reader.skip(new int[] {'t', 'r', 'u', 'e'});
+            var end = reader.position();
+            elements.addBoolean(true, reader.valueSourceRange(start, end));
+        } else if (reader.codePoint == 'f') {
+            var start = reader.position();
+            reader.skip(new int[] {'f', 'a', 'l', 's', 'e'});
+            var end = reader.position();
+            elements.addBoolean(false, reader.valueSourceRange(start, end));
+        } else if (
+            isAsciiDigitCodePoint(reader.codePoint) ||
+                reader.codePoint == '+' ||
+                reader.codePoint == '-'
+        ) {
+            var value = parseNumber(reader, elements);
+            if (value != null) {
+                elements.add(value);
+            }
+        } else {
+            elements.add(parseValue(reader));
+        }
     }
 
     private static TomlValue parseInlineTable(Reader reader) throws IOException {
-        var table = new TomlTableBuilder(TomlTableBuilder.DefinedBy.KEY_EXPLICIT);
+        var table = new TomlTableBuilder(TomlTableBuilder.DefinedBy.KEY_EXPLICIT, reader.tableShapes);
 
         reader.skip('{');
         skipWhitespace(reader);
@@ -964,9 +1792,7 @@ public class TomlParser {
 
     private static void skipArrayWhitespace(Reader reader) throws IOException {
         while (true) {
-            while (isTomlWhitespace(reader.codePoint)) {
-                reader.read();
-            }
+            skipWhitespace(reader);
 
             if (!trySkipToNextLineOrEndOfFile(reader) || reader.isEndOfFile()) {
                 return;
@@ -1001,7 +1827,7 @@ public class TomlParser {
 
         throw new TomlUnexpectedTextAtEolError(
             unexpectedText.toString(),
-            unexpectedTextStart.to(unexpectedTextEnd)
+            reader.sourceRange(unexpectedTextStart, unexpectedTextEnd)
         );
     }
 
@@ -1014,6 +1840,8 @@ public class TomlParser {
             reader.read();
 
             while (true) {
+                reader.skip(COMMENT_RUN);
+
                 if (trySkipNewLineOrEndOfFile(reader)) {
                     return true;
                 }
@@ -1023,7 +1851,7 @@ public class TomlParser {
                     var start = reader.position();
                     reader.read();
                     var end = reader.position();
-                    var sourceRange = start.to(end);
+                    var sourceRange = reader.sourceRange(start, end);
 
                     throw new TomlUnexpectedControlCharacterError(
                         controlCharacter,
@@ -1047,7 +1875,7 @@ public class TomlParser {
 
     private static boolean trySkipNewLine(Reader reader) throws IOException {
         if (reader.codePoint == '\n') {
-            reader.read();
+            reader.skipNewline();
             return true;
         }
 
@@ -1055,10 +1883,10 @@ public class TomlParser {
             var start = reader.position();
             reader.read();
             var end = reader.position();
-            var sourceRange = start.to(end);
+            var sourceRange = reader.sourceRange(start, end);
 
             if (reader.codePoint == '\n') {
-                reader.read();
+                reader.skipNewline();
                 return true;
             } else {
                 throw new TomlUnexpectedControlCharacterError(
@@ -1075,9 +1903,7 @@ public class TomlParser {
     }
 
     private static void skipWhitespace(Reader reader) throws IOException {
-        while (isTomlWhitespace(reader.codePoint)) {
-            reader.read();
-        }
+        reader.skip(WHITESPACE_RUN);
     }
 
     private static boolean isTomlWhitespace(int character) {
@@ -1096,20 +1922,268 @@ public class TomlParser {
         return character >= 0x30 && character <= 0x39;
     }
 
-    private static class Reader {
-        private final java.io.Reader reader;
-        private int codePoint;
-        private int codePointIndex;
+    /**
+     * A set of code points that a {@link Reader} can scan in bulk.
+     */
+    private static final class CodePointRun {
+        private final boolean[] isAsciiInRun;
+        private final boolean isNonAsciiInRun;
+
+        /**
+         * Whether the run is text, as scanned by {@link TextScanner}.
+         */
+        private final boolean isText;
+        private final byte firstTextExclusion;
+        private final byte secondTextExclusion;
+
+        private CodePointRun(String asciiCodePoints, boolean isNonAsciiInRun) {
+            this(asciiCodePoints, isNonAsciiInRun, false, (byte) 0, (byte) 0);
+        }
 
-        private Reader(java.io.Reader reader) {
-            this.reader = reader;
+        private CodePointRun(
+            String asciiCodePoints,
+            boolean isNonAsciiInRun,
+            boolean isText,
+            byte firstTextExclusion,
+            byte secondTextExclusion
+        ) {
+            this.isAsciiInRun = new boolean[0x80];
+            for (var index = 0; index < asciiCodePoints.length(); index++) {
+                this.isAsciiInRun[asciiCodePoints.charAt(index)] = true;
+            }
+            this.isNonAsciiInRun = isNonAsciiInRun;
+            this.isText = isText;
+            this.firstTextExclusion = firstTextExclusion;
+            this.secondTextExclusion = secondTextExclusion;
+        }
+
+        /**
+         * A run of tab, printable ASCII except for up to two excluded code
+         * points, and non-ASCII code points.
+         */
+        private static CodePointRun text(String excluded) {
+            // NUL is a control character, so is never text anyway.
+            return new CodePointRun(
+                printableAsciiExcept(excluded),
+                true,
+                true,
+                excluded.isEmpty() ? 0 : (byte) excluded.charAt(0),
+                excluded.length() < 2 ? 0 : (byte) excluded.charAt(1)
+            );
+        }
+
+        private static String asciiRange(char first, char last) {
+            var codePoints = new StringBuilder();
+            for (var codePoint = first; codePoint <= last; codePoint++) {
+                codePoints.append(codePoint);
+            }
+            return codePoints.toString();
+        }
+
+        private static String printableAsciiExcept(String excluded) {
+            var codePoints = new StringBuilder("\t");
+            for (var codePoint = ' '; codePoint <= '~'; codePoint++) {
+                if (excluded.indexOf(codePoint) == -1) {
+                    codePoints.append(codePoint);
+                }
+            }
+            return codePoints.toString();
+        }
+
+        private boolean isAsciiInRun(int codePoint) {
+            return this.isAsciiInRun[codePoint];
+        }
+
+        private boolean contains(int codePoint) {
+            if (codePoint < 0) {
+                return false;
+            } else if (codePoint < 0x80) {
+                return this.isAsciiInRun[codePoint];
+            } else {
+                var isSurrogate = codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE;
+                return this.isNonAsciiInRun && !isSurrogate;
+            }
+        }
+    }
+
+    private static final CodePointRun WHITESPACE_RUN = new CodePointRun(" \t", false);
+
+    private static final CodePointRun COMMENT_RUN = CodePointRun.text("");
+
+    private static final CodePointRun BARE_KEY_RUN = new CodePointRun(
+        CodePointRun.asciiRange('0', '9') +
+            CodePointRun.asciiRange('A', 'Z') +
+            CodePointRun.asciiRange('a', 'z') +
+            "_-",
+        false
+    );
+
+    private static final CodePointRun DECIMAL_DIGIT_RUN = new CodePointRun(
+        CodePointRun.asciiRange('0', '9'),
+        false
+    );
+
+    private static final CodePointRun BASIC_STRING_RUN = CodePointRun.text("\"\\");
+
+    private static final CodePointRun LITERAL_STRING_RUN = CodePointRun.text("'");
+
+    private abstract static class Reader {
+        protected int codePoint;
+        protected int codePointIndex;
+
+        /**
+         * The newlines read so far, which source ranges refer to so that
+         * their line and column can be found later, or null if source ranges
+         * aren't being tracked. The index, and the other state of the
+         * document, is set by the document.
+         */
+        protected NewlineIndex lineIndex;
+
+        /**
+         * Whether slices of the source may be returned by
+         * {@link #consumeSlice(CodePointRun)} without being copied.
+         */
+        protected boolean isSourceRetained;
+
+        /**
+         * Whether values are given source ranges. Errors are always given
+         * source ranges.
+         */
+        protected boolean isTrackingSourceRanges;
+
+        /**
+         * Whether floats, dates and times are decoded the first time their
+         * value is needed.
+         */
+        protected boolean isDecodingScalarsLazily;
+
+        /**
+         * Whether dates and times that are out of range are only reported
+         * when their value is first needed.
+         */
+        protected boolean isDeferringScalarErrors;
+
+        /**
+         * Whether dates and times store their fields packed into longs.
+         */
+        protected boolean isCompactingDateTimes;
+
+        /**
+         * The keys read so far, which may be shared with other readers for the
+         * same document.
+         */
+        protected KeyTable keyTable;
+
+        /**
+         * If not null, the symbol table that short string values are resolved
+         * through.
+         */
+        protected TomlSymbolTable symbolTable;
+
+        /**
+         * The shapes of the tables in the document being parsed, which are
+         * set by the document.
+         */
+        protected TableShapes tableShapes;
+
+        private final StringBuilder valueText;
+
+        /**
+         * The decoder for the fields of dates and times. The same decoder is
+         * reused for each value.
+         */
+        protected final DateTimeDecoder dateTimeDecoder;
+
+        protected Reader() {
             this.codePointIndex = -1;
+            this.valueText = new StringBuilder();
+            this.dateTimeDecoder = new DateTimeDecoder();
         }
 
-        public void read() throws IOException {
-            // TODO: do nothing if codepoint is -1
-            this.codePoint = reader.read();
-            codePointIndex += 1;
+        /**
+         * Get an empty buffer for the text of the value being parsed. The
+         * same buffer is reused for each value.
+         */
+        public StringBuilder valueText() {
+            valueText.setLength(0);
+            return valueText;
+        }
+
+        public abstract void read() throws IOException;
+
+        /**
+         * Skip code points while the current code point is in the run.
+         */
+        public void skip(CodePointRun run) throws IOException {
+            consume(null, run);
+        }
+
+        /**
+         * Consume code points while the current code point is in the run.
+         * <p>
+         * Implementations scan their buffer directly rather than reading one
+         * code point at a time.
+         *
+         * @param valueString The builder to append the consumed code points to,
+         *                    or null if the code points should be skipped.
+         */
+        public abstract void consume(StringBuilder valueString, CodePointRun run) throws IOException;
+
+        /**
+         * Consume code points while the current code point is in the run.
+         *
+         * @return The consumed code points.
+         */
+        public String consumeToString(CodePointRun run) throws IOException {
+            if (!run.contains(codePoint)) {
+                return "";
+            }
+            var valueString = new StringBuilder();
+            consume(valueString, run);
+            return valueString.toString();
+        }
+
+        /**
+         * Consume code points while the current code point is in the run.
+         *
+         * @return The consumed code points. If the source is retained, this
+         * may be a view of the source rather than a copy.
+         */
+        public CharSequence consumeSlice(CodePointRun run) throws IOException {
+            return consumeToString(run);
+        }
+
+        /**
+         * Consume code points while the current code point is in the run,
+         * which must only contain ASCII code points.
+         *
+         * @return The consumed code points, as the same string as any earlier
+         * key with the same code points.
+         */
+        public String consumeKey(CodePointRun run) throws IOException {
+            if (!run.contains(codePoint)) {
+                return "";
+            }
+            var key = valueText();
+            consume(key, run);
+            return keyTable.get(key, 0, key.length());
+        }
+
+        /**
+         * The offset of the current code point in the source, for use with
+         * {@link #sourceSlice(int, int)}, or -1 if the source isn't retained
+         * or can't be sliced.
+         */
+        public int sourceOffset() {
+            return -1;
+        }
+
+        /**
+         * A view of the source between two offsets returned by
+         * {@link #sourceOffset()}, which must only contain ASCII code points.
+         */
+        public CharSequence sourceSlice(int start, int end) {
+            throw new UnsupportedOperationException();
         }
 
         public void consume(StringBuilder valueString) throws IOException {
@@ -1119,6 +2193,32 @@ public class TomlParser {
             }
         }
 
+        /**
+         * Skip the current code point, which must be a newline, adding it to
+         * the line index. Code points are read without checking for
+         * newlines, so every newline must be skipped or consumed using this
+         * method or {@link #consumeNewline(StringBuilder)}.
+         */
+        public void skipNewline() throws IOException {
+            addNewline();
+            read();
+        }
+
+        /**
+         * Consume the current code point, which must be a newline, adding it
+         * to the line index.
+         */
+        public void consumeNewline(StringBuilder valueString) throws IOException {
+            addNewline();
+            consume(valueString);
+        }
+
+        private void addNewline() {
+            if (lineIndex != null) {
+                lineIndex.addNewline(codePointIndex);
+            }
+        }
+
         public void consume(StringBuilder valueString, int expectedCodePoint) throws IOException {
             expect(expectedCodePoint);
             consume(valueString);
@@ -1138,7 +2238,7 @@ public class TomlParser {
         public void expect(int expectedCodePoint) {
             if (this.codePoint != expectedCodePoint) {
                 var position = this.position();
-                var sourceRange = position.to(position);
+                var sourceRange = sourceRange(position, position);
                 throw new TomlParseError(String.format(
                     "Expected %s but got %s",
                     formatCodePoint(expectedCodePoint),
@@ -1155,9 +2255,666 @@ public class TomlParser {
             return new SourcePosition(codePointIndex);
         }
 
+        public SourceRange sourceRange(SourcePosition start, SourcePosition end) {
+            return SourceRange.of(start, end, lineIndex);
+        }
+
+        /**
+         * The source range of a value, or null if source ranges aren't being
+         * tracked.
+         */
+        public SourceRange valueSourceRange(SourcePosition start, SourcePosition end) {
+            return isTrackingSourceRanges ? sourceRange(start, end) : null;
+        }
+
+        public SourceRange positionSourceRange() {
+            var position = position();
+            return sourceRange(position, position);
+        }
+
         public SourceRange codePointSourceRange() {
-            return position().to(new SourcePosition(codePointIndex + 1));
+            return sourceRange(position(), new SourcePosition(codePointIndex + 1));
+        }
+    }
+
+    /**
+     * Reads code points from a {@link java.io.Reader}, combining surrogate
+     * pairs into a single code point.
+     */
+    private static final class CharReader extends Reader {
+        private static final int BUFFER_SIZE = 8192;
+
+        private final java.io.Reader reader;
+        private final char[] buffer;
+        private int bufferIndex;
+        private int bufferLimit;
+
+        private CharReader(java.io.Reader reader) {
+            this.reader = reader;
+            this.buffer = new char[BUFFER_SIZE];
+        }
+
+        @Override
+        public void read() throws IOException {
+            // TODO: do nothing if codepoint is -1
+            codePointIndex += 1;
+
+            var character = readChar();
+            if (character != -1 && Character.isHighSurrogate((char) character)) {
+                if (bufferIndex < bufferLimit || fill()) {
+                    var nextCharacter = buffer[bufferIndex];
+                    if (Character.isLowSurrogate(nextCharacter)) {
+                        bufferIndex += 1;
+                        this.codePoint = Character.toCodePoint((char) character, nextCharacter);
+                        return;
+                    }
+                }
+            }
+
+            this.codePoint = character;
+        }
+
+        @Override
+        public void consume(StringBuilder valueString, CodePointRun run) throws IOException {
+            while (run.contains(codePoint)) {
+                if (valueString != null) {
+                    valueString.appendCodePoint(codePoint);
+                }
+
+                var runStart = bufferIndex;
+                var index = runStart;
+                while (index < bufferLimit) {
+                    var character = buffer[index];
+                    if (character < 0x80 ? !run.isAsciiInRun(character) : !run.contains(character)) {
+                        break;
+                    }
+                    index += 1;
+                }
+
+                if (valueString != null) {
+                    valueString.append(buffer, runStart, index - runStart);
+                }
+                codePointIndex += index - runStart;
+                bufferIndex = index;
+
+                read();
+            }
+        }
+
+        private int readChar() throws IOException {
+            if (bufferIndex == bufferLimit && !fill()) {
+                return -1;
+            }
+            return buffer[bufferIndex++];
+        }
+
+        private boolean fill() throws IOException {
+            var charCount = 0;
+            while (charCount == 0) {
+                charCount = reader.read(buffer, 0, buffer.length);
+            }
+            if (charCount < 0) {
+                bufferIndex = 0;
+                bufferLimit = 0;
+                return false;
+            }
+
+            bufferIndex = 0;
+            bufferLimit = charCount;
+            return true;
+        }
+    }
+
+    /**
+     * Reads code points from a {@link CharSequence} by index.
+     */
+    private static final class CharSequenceReader extends Reader {
+        private final CharSequence text;
+        private final int length;
+        /**
+         * The index of the next char to read.
+         */
+        private int index;
+
+        private CharSequenceReader(CharSequence text) {
+            this.text = text;
+            this.length = text.length();
+        }
+
+        @Override
+        public void read() {
+            // TODO: do nothing if codepoint is -1
+            codePointIndex += 1;
+
+            if (index >= length) {
+                this.codePoint = -1;
+                return;
+            }
+
+            var character = text.charAt(index++);
+            if (Character.isHighSurrogate(character) && index < length) {
+                var nextCharacter = text.charAt(index);
+                if (Character.isLowSurrogate(nextCharacter)) {
+                    index += 1;
+                    this.codePoint = Character.toCodePoint(character, nextCharacter);
+                    return;
+                }
+            }
+
+            this.codePoint = character;
+        }
+
+        @Override
+        public void consume(StringBuilder valueString, CodePointRun run) {
+            while (run.contains(codePoint)) {
+                if (valueString != null) {
+                    valueString.appendCodePoint(codePoint);
+                }
+
+                var runEnd = scanRun(run);
+                if (valueString != null) {
+                    valueString.append(text, index, runEnd);
+                }
+                codePointIndex += runEnd - index;
+                index = runEnd;
+
+                read();
+            }
+        }
+
+        @Override
+        public String consumeToString(CodePointRun run) {
+            return consumeSlice(run, false).toString();
+        }
+
+        @Override
+        public CharSequence consumeSlice(CodePointRun run) {
+            return consumeSlice(run, isSourceRetained);
+        }
+
+        @Override
+        public String consumeKey(CodePointRun run) {
+            if (!run.contains(codePoint)) {
+                return "";
+            }
+
+            var start = index - Character.charCount(codePoint);
+            consume(null, run);
+            var end = isEndOfFile() ? index : index - Character.charCount(codePoint);
+            return keyTable.get(text, start, end);
+        }
+
+        @Override
+        public int sourceOffset() {
+            if (!isSourceRetained) {
+                return -1;
+            }
+            return isEndOfFile() ? index : index - Character.charCount(codePoint);
+        }
+
+        @Override
+        public CharSequence sourceSlice(int start, int end) {
+            return CharBuffer.wrap(text, start, end);
+        }
+
+        private CharSequence consumeSlice(CodePointRun run, boolean isView) {
+            if (!run.contains(codePoint)) {
+                return "";
+            }
+
+            var start = index - Character.charCount(codePoint);
+            consume(null, run);
+            var end = isEndOfFile() ? index : index - Character.charCount(codePoint);
+            if (isView) {
+                return CharBuffer.wrap(text, start, end);
+            } else {
+                return text.subSequence(start, end).toString();
+            }
+        }
+
+        private int scanRun(CodePointRun run) {
+            var runEnd = index;
+            while (runEnd < length) {
+                var character = text.charAt(runEnd);
+                if (character < 0x80 ? !run.isAsciiInRun(character) : !run.contains(character)) {
+                    break;
+                }
+                runEnd += 1;
+            }
+            return runEnd;
+        }
+    }
+
+    /**
+     * A source of bytes for a {@link Utf8Reader}, with the same contract as
+     * {@link java.nio.channels.ReadableByteChannel#read(ByteBuffer)}.
+     */
+    private interface ByteSource {
+        int read(ByteBuffer buffer) throws IOException;
+    }
+
+    /**
+     * Reads code points directly from UTF-8 encoded bytes.
+     * <p>
+     * ASCII bytes are returned as-is, so only multi-byte sequences, which can
+     * only legally appear in strings and comments, pay the cost of decoding and
+     * validation. Invalid UTF-8 is reported at the position of the offending
+     * code point.
+     */
+    private static final class Utf8Reader extends Reader {
+        private static final int BUFFER_SIZE = 8192;
+
+        private final ByteBuffer buffer;
+        private final byte[] bufferArray;
+        private final int bufferArrayOffset;
+        private ByteSource source;
+        private int bufferIndex;
+        private int bufferLimit;
+
+        /**
+         * @param buffer The bytes between the position and the limit of the
+         *               buffer are read first. Reading does not change the
+         *               position or limit of the buffer.
+         * @param source If not null, the source used to refill the buffer
+         *               once it has been read.
+         */
+        private Utf8Reader(ByteBuffer buffer, ByteSource source) {
+            this.buffer = buffer;
+            // Reading the backing array directly is faster than going through
+            // the buffer for heap buffers.
+            this.bufferArray = buffer.hasArray() ? buffer.array() : null;
+            this.bufferArrayOffset = buffer.hasArray() ? buffer.arrayOffset() : 0;
+            this.source = source;
+            this.bufferIndex = buffer.position();
+            this.bufferLimit = buffer.limit();
+        }
+
+        private static Utf8Reader fromInputStream(InputStream inputStream) {
+            var buffer = ByteBuffer.allocate(BUFFER_SIZE).limit(0);
+            return new Utf8Reader(buffer, target -> {
+                var byteCount = inputStream.read(
+                    target.array(),
+                    target.arrayOffset() + target.position(),
+                    target.remaining()
+                );
+                if (byteCount > 0) {
+                    target.position(target.position() + byteCount);
+                }
+                return byteCount;
+            });
+        }
+
+        private static Utf8Reader fromByteChannel(ReadableByteChannel channel) {
+            var buffer = ByteBuffer.allocate(BUFFER_SIZE).limit(0);
+            return new Utf8Reader(buffer, channel::read);
+        }
+
+        @Override
+        public void read() throws IOException {
+            // TODO: do nothing if codepoint is -1
+            codePointIndex += 1;
+
+            var firstByte = readByte();
+            if (firstByte < 0x80) {
+                // ASCII or end of file
+                this.codePoint = firstByte;
+            } else {
+                this.codePoint = readMultiByteCodePoint(firstByte);
+            }
+        }
+
+        @Override
+        public void consume(StringBuilder valueString, CodePointRun run) throws IOException {
+            while (run.contains(codePoint)) {
+                if (valueString != null) {
+                    valueString.appendCodePoint(codePoint);
+                }
+
+                var index = bufferIndex;
+                var codePointCount = 0;
+                while (index < bufferLimit) {
+                    if (run.isText && bufferArray != null) {
+                        var textEnd = TextScanner.DEFAULT.skipText(
+                            bufferArray,
+                            bufferArrayOffset + index,
+                            bufferArrayOffset + bufferLimit,
+                            run.firstTextExclusion,
+                            run.secondTextExclusion
+                        ) - bufferArrayOffset;
+                        if (valueString != null) {
+                            for (var textIndex = index; textIndex < textEnd; textIndex++) {
+                                valueString.append((char) bufferArray[bufferArrayOffset + textIndex]);
+                            }
+                        }
+                        codePointCount += textEnd - index;
+                        index = textEnd;
+                        if (index == bufferLimit) {
+                            break;
+                        }
+                    }
+
+                    var currentByte = byteAt(index);
+                    if (currentByte < 0x80) {
+                        if (!run.isAsciiInRun(currentByte)) {
+                            break;
+                        }
+                        if (valueString != null) {
+                            valueString.append((char) currentByte);
+                        }
+                        index += 1;
+                    } else {
+                        // Multi-byte sequences that are invalid, or that cross
+                        // the end of the buffer, are left to read().
+                        var byteCount = utf8SequenceLength(currentByte);
+                        if (byteCount == 0 || index + byteCount > bufferLimit) {
+                            break;
+                        }
+                        var codePoint = decodeInBuffer(index, byteCount);
+                        if (!run.contains(codePoint)) {
+                            break;
+                        }
+                        if (valueString != null) {
+                            valueString.appendCodePoint(codePoint);
+                        }
+                        index += byteCount;
+                    }
+                    codePointCount += 1;
+                }
+
+                codePointIndex += codePointCount;
+                bufferIndex = index;
+
+                read();
+            }
+        }
+
+        @Override
+        public String consumeToString(CodePointRun run) throws IOException {
+            return consumeSlice(run, false).toString();
+        }
+
+        @Override
+        public CharSequence consumeSlice(CodePointRun run) throws IOException {
+            return consumeSlice(run, isSourceRetained);
+        }
+
+        @Override
+        public String consumeKey(CodePointRun run) throws IOException {
+            if (source != null || bufferArray == null) {
+                return super.consumeKey(run);
+            }
+            if (!run.contains(codePoint)) {
+                return "";
+            }
+
+            var start = bufferIndex - utf8EncodedLength(codePoint);
+            consume(null, run);
+            var end = bufferIndex - utf8EncodedLength(codePoint);
+            return keyTable.getAscii(bufferArray, bufferArrayOffset + start, bufferArrayOffset + end);
+        }
+
+        @Override
+        public int sourceOffset() {
+            if (!isSourceRetained || source != null || bufferArray == null) {
+                return -1;
+            }
+            return bufferIndex - utf8EncodedLength(codePoint);
+        }
+
+        @Override
+        public CharSequence sourceSlice(int start, int end) {
+            return new AsciiSlice(bufferArray, bufferArrayOffset + start, end - start);
+        }
+
+        /**
+         * When the rest of the document is in a heap buffer, the consumed
+         * code points are decoded from the backing array in one go, rather
+         * than being appended one at a time.
+         */
+        private CharSequence consumeSlice(CodePointRun run, boolean isView) throws IOException {
+            if (source != null || bufferArray == null) {
+                return super.consumeToString(run);
+            }
+            if (!run.contains(codePoint)) {
+                return "";
+            }
+
+            var start = bufferIndex - utf8EncodedLength(codePoint);
+            consume(null, run);
+            var end = bufferIndex - utf8EncodedLength(codePoint);
+            if (isView) {
+                return new Utf8Slice(bufferArray, bufferArrayOffset + start, end - start);
+            } else {
+                return new String(bufferArray, bufferArrayOffset + start, end - start, StandardCharsets.UTF_8);
+            }
+        }
+
+        private static int utf8EncodedLength(int codePoint) {
+            if (codePoint == -1) {
+                return 0;
+            } else if (codePoint < 0x80) {
+                return 1;
+            } else if (codePoint < 0x800) {
+                return 2;
+            } else if (codePoint < 0x10000) {
+                return 3;
+            } else {
+                return 4;
+            }
+        }
+
+        private static int utf8SequenceLength(int firstByte) {
+            if (firstByte >= 0xc2 && firstByte <= 0xdf) {
+                return 2;
+            } else if (firstByte >= 0xe0 && firstByte <= 0xef) {
+                return 3;
+            } else if (firstByte >= 0xf0 && firstByte <= 0xf4) {
+                return 4;
+            } else {
+                return 0;
+            }
+        }
+
+        /**
+         * Decode a multi-byte sequence that lies entirely within the buffer.
+         *
+         * @return The code point, or -1 if the sequence is invalid.
+         */
+        private int decodeInBuffer(int index, int byteCount) {
+            var firstByte = byteAt(index);
+            var codePoint = firstByte & (0xff >> (byteCount + 1));
+            for (var byteIndex = 1; byteIndex < byteCount; byteIndex++) {
+                var continuationByte = byteAt(index + byteIndex);
+                if (continuationByte < continuationByteMinimum(firstByte, byteIndex) ||
+                    continuationByte > continuationByteMaximum(firstByte, byteIndex)) {
+                    return -1;
+                }
+                codePoint = (codePoint << 6) | (continuationByte & 0x3f);
+            }
+            return codePoint;
+        }
+
+        private int readMultiByteCodePoint(int firstByte) throws IOException {
+            var byteCount = utf8SequenceLength(firstByte);
+            if (byteCount == 0) {
+                throw invalidUtf8Error();
+            }
+
+            var codePoint = firstByte & (0xff >> (byteCount + 1));
+            for (var byteIndex = 1; byteIndex < byteCount; byteIndex++) {
+                var continuationByte = readByte();
+                if (continuationByte < continuationByteMinimum(firstByte, byteIndex) ||
+                    continuationByte > continuationByteMaximum(firstByte, byteIndex)) {
+                    throw invalidUtf8Error();
+                }
+                codePoint = (codePoint << 6) | (continuationByte & 0x3f);
+            }
+
+            return codePoint;
+        }
+
+        private static int continuationByteMinimum(int firstByte, int byteIndex) {
+            if (byteIndex == 1) {
+                if (firstByte == 0xe0) {
+                    // Overlong encoding
+                    return 0xa0;
+                } else if (firstByte == 0xf0) {
+                    // Overlong encoding
+                    return 0x90;
+                }
+            }
+            return 0x80;
+        }
+
+        private static int continuationByteMaximum(int firstByte, int byteIndex) {
+            if (byteIndex == 1) {
+                if (firstByte == 0xed) {
+                    // Surrogates
+                    return 0x9f;
+                } else if (firstByte == 0xf4) {
+                    // Above U+10FFFF
+                    return 0x8f;
+                }
+            }
+            return 0xbf;
+        }
+
+        private int readByte() throws IOException {
+            if (bufferIndex == bufferLimit && !fill()) {
+                return -1;
+            }
+            return byteAt(bufferIndex++);
+        }
+
+        private int byteAt(int index) {
+            if (bufferArray == null) {
+                return buffer.get(index) & 0xff;
+            } else {
+                return bufferArray[bufferArrayOffset + index] & 0xff;
+            }
+        }
+
+        private boolean fill() throws IOException {
+            if (source == null) {
+                return false;
+            }
+
+            buffer.clear();
+            var byteCount = 0;
+            while (byteCount == 0) {
+                byteCount = source.read(buffer);
+            }
+            if (byteCount < 0) {
+                source = null;
+                bufferIndex = 0;
+                bufferLimit = 0;
+                return false;
+            }
+
+            bufferIndex = 0;
+            bufferLimit = buffer.position();
+            return true;
+        }
+
+        private TomlInvalidUtf8Error invalidUtf8Error() {
+            return new TomlInvalidUtf8Error(codePointSourceRange());
         }
     }
 
+    /**
+     * A view of valid UTF-8 encoded bytes that is only decoded when converted
+     * to a string.
+     */
+    private static final class Utf8Slice implements CharSequence {
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+        private String string;
+
+        private Utf8Slice(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            if (string != null) {
+                return string.length();
+            }
+            // The bytes have already been validated, so every byte that
+            // isn't a continuation byte starts a code point, and code points
+            // with four byte encodings need a surrogate pair.
+            var charCount = 0;
+            for (var index = offset; index < offset + length; index++) {
+                var b = bytes[index];
+                if ((b & 0xc0) != 0x80) {
+                    charCount += (b & 0xf8) == 0xf0 ? 2 : 1;
+                }
+            }
+            return charCount;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return toString().charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            // Strings are immutable, so racing to decode the bytes is
+            // harmless.
+            var string = this.string;
+            if (string == null) {
+                string = new String(bytes, offset, length, StandardCharsets.UTF_8);
+                this.string = string;
+            }
+            return string;
+        }
+    }
+
+    /**
+     * A view of bytes that are treated as ASCII, where each byte is a char.
+     * Bytes that aren't ASCII are returned as the chars with the same value,
+     * so comparing a slice to ASCII text only matches if the slice is also
+     * ASCII.
+     */
+    private static final class AsciiSlice implements CharSequence {
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+
+        private AsciiSlice(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            Objects.checkIndex(index, length);
+            return (char) (bytes[offset + index] & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            Objects.checkFromToIndex(start, end, length);
+            return new AsciiSlice(bytes, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+    }
 }
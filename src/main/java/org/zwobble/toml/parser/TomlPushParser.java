@@ -0,0 +1,279 @@
+package org.zwobble.toml.parser;
+
+import org.zwobble.toml.errors.TomlParseError;
+import org.zwobble.toml.values.TomlTable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A non-blocking parser for TOML 1.0.0 documents that accepts UTF-8 encoded
+ * input in chunks.
+ * <p>
+ * Pass each chunk to {@link #feed(ByteBuffer)} as it arrives, and call
+ * {@link #finish()} at the end of the input. Complete lines are parsed as
+ * soon as they are available, so only the current line, or the current
+ * multi-line value, is buffered. Chunks may be split at any byte, including
+ * within a UTF-8 sequence, a string or a number.
+ * <p>
+ * The result, including any {@link TomlParseError}, is the same as parsing
+ * the entire input with {@link TomlParser}.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class TomlPushParser {
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    private enum LexicalState {
+        NORMAL,
+        COMMENT,
+        BASIC_STRING,
+        LITERAL_STRING,
+        MULTI_LINE_BASIC_STRING,
+        MULTI_LINE_LITERAL_STRING,
+    }
+
+    private final TomlParser.IncrementalDocument document;
+
+    /**
+     * Bytes that have been fed but not yet parsed.
+     */
+    private byte[] buffer;
+    private int bufferLength;
+
+    /**
+     * The index in the document of the first code point in the buffer.
+     */
+    private int bufferCodePointIndex;
+
+    /**
+     * Bytes in the buffer before this index have been scanned.
+     */
+    private int scanIndex;
+
+    /**
+     * Bytes in the buffer before this index form complete lines that are
+     * ready to be parsed.
+     */
+    private int completeLinesEnd;
+
+    private LexicalState lexicalState;
+    private int bracketDepth;
+    private boolean isClosed;
+
+    public TomlPushParser() {
+        this(TomlParseOptions.defaults());
+    }
+
+    /**
+     * @param options The options to use when parsing the document. Since
+     *                the input isn't read from a file, the file read options
+     *                are ignored.
+     */
+    public TomlPushParser(TomlParseOptions options) {
+        this.document = new TomlParser.IncrementalDocument(options);
+        this.buffer = new byte[INITIAL_BUFFER_SIZE];
+        this.lexicalState = LexicalState.NORMAL;
+    }
+
+    /**
+     * Parse the next chunk of the document.
+     * <p>
+     * All the remaining bytes in the chunk are consumed, so the position of
+     * the chunk is set to its limit. The chunk is not referenced once this
+     * method returns.
+     *
+     * @param chunk The next chunk of the document.
+     * @throws TomlParseError if the TOML document is invalid
+     * @throws IllegalStateException if the parser has finished or failed
+     */
+    public void feed(ByteBuffer chunk) {
+        checkNotClosed();
+
+        var chunkLength = chunk.remaining();
+        ensureCapacity(bufferLength + chunkLength);
+        chunk.get(buffer, bufferLength, chunkLength);
+        bufferLength += chunkLength;
+
+        try {
+            scan();
+            parseCompleteLines();
+        } catch (RuntimeException exception) {
+            isClosed = true;
+            throw exception;
+        }
+    }
+
+    /**
+     * Parse the remainder of the document.
+     *
+     * @return The root table of the TOML document.
+     * @throws TomlParseError if the TOML document is invalid
+     * @throws IllegalStateException if the parser has finished or failed
+     */
+    public TomlTable finish() {
+        checkNotClosed();
+        isClosed = true;
+
+        document.parseSegment(ByteBuffer.wrap(buffer, 0, bufferLength), bufferCodePointIndex);
+        return document.toTable();
+    }
+
+    private void checkNotClosed() {
+        if (isClosed) {
+            throw new IllegalStateException("Parser has already finished or failed");
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+        }
+    }
+
+    /**
+     * Scan the buffer to find the end of the last complete line that is not
+     * within a string, array or inline table.
+     * <p>
+     * Scanning stops early if the next byte can't be classified without
+     * seeing more of the document, such as a quote that could be the start of
+     * a multi-line string.
+     */
+    private void scan() {
+        var index = scanIndex;
+
+        scanning:
+        while (index < bufferLength) {
+            var currentByte = buffer[index];
+
+            switch (lexicalState) {
+                case NORMAL -> {
+                    if (currentByte == '\n') {
+                        index += 1;
+                        if (bracketDepth == 0) {
+                            completeLinesEnd = index;
+                        }
+                    } else if (currentByte == '#') {
+                        lexicalState = LexicalState.COMMENT;
+                        index += 1;
+                    } else if (currentByte == '[' || currentByte == '{') {
+                        bracketDepth += 1;
+                        index += 1;
+                    } else if (currentByte == ']' || currentByte == '}') {
+                        if (bracketDepth > 0) {
+                            bracketDepth -= 1;
+                        }
+                        index += 1;
+                    } else if (currentByte == '"' || currentByte == '\'') {
+                        var quoteCount = countQuotes(index, 3);
+                        if (quoteCount == -1) {
+                            break scanning;
+                        } else if (quoteCount == 3) {
+                            lexicalState = currentByte == '"'
+                                ? LexicalState.MULTI_LINE_BASIC_STRING
+                                : LexicalState.MULTI_LINE_LITERAL_STRING;
+                        } else if (quoteCount == 1) {
+                            lexicalState = currentByte == '"'
+                                ? LexicalState.BASIC_STRING
+                                : LexicalState.LITERAL_STRING;
+                        }
+                        // Two quotes are an empty string.
+                        index += quoteCount;
+                    } else {
+                        index += 1;
+                    }
+                }
+                case COMMENT -> {
+                    if (currentByte == '\n') {
+                        lexicalState = LexicalState.NORMAL;
+                    } else {
+                        index += 1;
+                    }
+                }
+                case BASIC_STRING, LITERAL_STRING -> {
+                    var quote = lexicalState == LexicalState.BASIC_STRING ? '"' : '\'';
+                    if (currentByte == '\n') {
+                        // Strings can't contain newlines, so the line is
+                        // invalid, but the next line can still be scanned.
+                        lexicalState = LexicalState.NORMAL;
+                    } else if (currentByte == quote) {
+                        lexicalState = LexicalState.NORMAL;
+                        index += 1;
+                    } else if (currentByte == '\\' && lexicalState == LexicalState.BASIC_STRING) {
+                        if (index + 1 == bufferLength) {
+                            break scanning;
+                        }
+                        index += buffer[index + 1] == '\n' ? 1 : 2;
+                    } else {
+                        index += 1;
+                    }
+                }
+                case MULTI_LINE_BASIC_STRING, MULTI_LINE_LITERAL_STRING -> {
+                    var quote = lexicalState == LexicalState.MULTI_LINE_BASIC_STRING ? '"' : '\'';
+                    if (currentByte == quote) {
+                        // Up to two quotes may appear immediately before the
+                        // closing delimiter.
+                        var quoteCount = countQuotes(index, 5);
+                        if (quoteCount == -1) {
+                            break scanning;
+                        } else if (quoteCount >= 3) {
+                            lexicalState = LexicalState.NORMAL;
+                        }
+                        index += quoteCount;
+                    } else if (currentByte == '\\' && lexicalState == LexicalState.MULTI_LINE_BASIC_STRING) {
+                        if (index + 1 == bufferLength) {
+                            break scanning;
+                        }
+                        index += 2;
+                    } else {
+                        index += 1;
+                    }
+                }
+            }
+        }
+
+        scanIndex = index;
+    }
+
+    /**
+     * Count the quotes at the start of the buffer at the given index, up to a
+     * maximum.
+     *
+     * @return The number of quotes, or -1 if the end of the buffer is reached
+     * before either the maximum or a different byte.
+     */
+    private int countQuotes(int index, int maximum) {
+        var quote = buffer[index];
+        var quoteCount = 0;
+        while (quoteCount < maximum) {
+            if (index + quoteCount == bufferLength) {
+                return -1;
+            } else if (buffer[index + quoteCount] != quote) {
+                break;
+            }
+            quoteCount += 1;
+        }
+        return quoteCount;
+    }
+
+    private void parseCompleteLines() {
+        if (completeLinesEnd == 0) {
+            return;
+        }
+
+        document.parseSegment(ByteBuffer.wrap(buffer, 0, completeLinesEnd), bufferCodePointIndex);
+
+        // Since the segment was parsed, it must be valid UTF-8, so the code
+        // points are the bytes that aren't continuation bytes.
+        for (var index = 0; index < completeLinesEnd; index++) {
+            if ((buffer[index] & 0xc0) != 0x80) {
+                bufferCodePointIndex += 1;
+            }
+        }
+
+        System.arraycopy(buffer, completeLinesEnd, buffer, 0, bufferLength - completeLinesEnd);
+        bufferLength -= completeLinesEnd;
+        scanIndex -= completeLinesEnd;
+        completeLinesEnd = 0;
+    }
+}
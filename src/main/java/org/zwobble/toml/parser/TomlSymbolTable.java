@@ -0,0 +1,121 @@
+package org.zwobble.toml.parser;
+
+/**
+ * A bounded table of keys and short string values that can be shared by
+ * many parses, including concurrent parses, so that documents with the same
+ * keys and values use the same {@link String} instances.
+ * <p>
+ * Each string hashes to a set of four entries, ordered from the most to the
+ * least recently used. A string that is found moves to the front of its set,
+ * and a string that isn't found replaces the least recently used entry, so
+ * the table never holds more than its capacity, and frequently used strings
+ * stay in the table.
+ * <p>
+ * Lookups and insertions don't lock. Entries are read and written without
+ * synchronization, which is safe since strings are immutable: a thread that
+ * sees an entry sees the whole string. The worst a race can do is lose an
+ * entry or duplicate one within a set, in which case some equal strings
+ * won't be the same instance.
+ */
+public final class TomlSymbolTable {
+    /**
+     * The length of the longest string value that is looked up in the
+     * table. Keys are looked up whatever their length.
+     */
+    static final int MAX_STRING_VALUE_LENGTH = 64;
+
+    private static final int WAYS = 4;
+    private static final int MAX_SET_COUNT = 1 << 26;
+
+    private final String[] entries;
+    private final int setMask;
+
+    /**
+     * @param capacity The maximum number of strings in the table. This is
+     *                 rounded up to a power of two that is at least four.
+     */
+    public TomlSymbolTable(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive, but was " + capacity);
+        }
+        var setCount = 1;
+        while (setCount * WAYS < capacity && setCount < MAX_SET_COUNT) {
+            setCount *= 2;
+        }
+        this.entries = new String[setCount * WAYS];
+        this.setMask = setCount - 1;
+    }
+
+    /**
+     * The maximum number of strings in the table.
+     */
+    public int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * Get the string with the characters of the text between the given
+     * indices.
+     *
+     * @param hash The hash code of the characters, as computed by
+     *             {@link KeyTable#hash(CharSequence, int, int)}.
+     */
+    String get(CharSequence text, int start, int end, int hash) {
+        var set = setStart(hash);
+        for (var way = 0; way < WAYS; way++) {
+            var entry = entries[set + way];
+            if (entry != null && entry.hashCode() == hash && KeyTable.matches(entry, text, start, end)) {
+                return promote(set, way, entry);
+            }
+        }
+        return insert(set, text.subSequence(start, end).toString());
+    }
+
+    /**
+     * Get the string with the characters of the ASCII bytes between the
+     * given indices.
+     *
+     * @param hash The hash code of the characters, as computed by
+     *             {@link KeyTable#hashAscii(byte[], int, int)}.
+     */
+    String getAscii(byte[] bytes, int start, int end, int hash) {
+        var set = setStart(hash);
+        for (var way = 0; way < WAYS; way++) {
+            var entry = entries[set + way];
+            if (entry != null && entry.hashCode() == hash && KeyTable.matchesAscii(entry, bytes, start, end)) {
+                return promote(set, way, entry);
+            }
+        }
+        return insert(set, KeyTable.asciiString(bytes, start, end));
+    }
+
+    private int setStart(int hash) {
+        return ((hash ^ (hash >>> 16)) & setMask) * WAYS;
+    }
+
+    private String promote(int set, int way, String entry) {
+        // Most lookups find the most recently used entry, which is already at
+        // the front, so the set is only written when the order changes.
+        if (way > 0) {
+            shift(set, way);
+            entries[set] = entry;
+        }
+        return entry;
+    }
+
+    private String insert(int set, String entry) {
+        shift(set, WAYS - 1);
+        entries[set] = entry;
+        return entry;
+    }
+
+    /**
+     * Move the entries before the given way back by one, overwriting the
+     * entry at that way.
+     */
+    private void shift(int set, int way) {
+        for (; way > 0; way--) {
+            entries[set + way] = entries[set + way - 1];
+        }
+    }
+}
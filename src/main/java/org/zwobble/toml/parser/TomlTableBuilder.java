@@ -2,12 +2,17 @@ package org.zwobble.toml.parser;
 
 import org.zwobble.toml.errors.TomlDuplicateKeyError;
 import org.zwobble.toml.values.TomlArray;
-import org.zwobble.toml.values.TomlKeyValuePair;
 import org.zwobble.toml.values.TomlTable;
 import org.zwobble.toml.values.TomlValue;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 
+/**
+ * Builds a table as it's parsed. Tables are immutable, so the table and its
+ * sub-tables are only created once the whole document has been parsed.
+ */
 class TomlTableBuilder {
     enum DefinedBy {
         INLINE,
@@ -17,37 +22,101 @@ class TomlTableBuilder {
         KEY_EXPLICIT,
     }
 
-    private final TomlTable table;
-    private final LinkedHashMap<String, TomlKeyValuePair> keyValuePairs;
-    private final Map<String, TomlTableBuilder> subTableBuilders;
-    private final Map<String, List<TomlValue>> arrayOfTables;
+    /**
+     * The entries of the table in order. Each value is either a
+     * {@link TomlValue}, the {@link TomlTableBuilder} of a sub-table, or an
+     * {@link ArrayOfTables}, so that a single lookup finds whatever a key
+     * refers to.
+     * <p>
+     * Tables that only contain sub-tables, such as the parents of tables
+     * with dotted headers, often have only a few keys, so the map is only
+     * created when the first key is added.
+     */
+    private LinkedHashMap<String, Object> entries;
     private DefinedBy definedBy;
+    private final TableShapes shapes;
 
-    TomlTableBuilder(DefinedBy definedBy) {
-        this.keyValuePairs = new LinkedHashMap<>();
-        this.table = new TomlTable(this.keyValuePairs);
-        this.subTableBuilders = new HashMap<>();
-        this.arrayOfTables = new HashMap<>();
+    /**
+     * @param shapes The shapes of the tables in the document.
+     */
+    TomlTableBuilder(DefinedBy definedBy, TableShapes shapes) {
         this.definedBy = definedBy;
+        this.shapes = shapes;
+    }
+
+    /**
+     * The elements of an array of tables. Only the last element can still be
+     * changed, so the earlier elements are stored as tables.
+     */
+    private static final class ArrayOfTables {
+        private final List<TomlValue> tables = new ArrayList<>();
+        private TomlTableBuilder last;
+
+        private TomlTableBuilder add(TableShapes shapes) {
+            if (this.last != null) {
+                this.tables.add(this.last.toTable());
+            }
+            this.last = new TomlTableBuilder(DefinedBy.TABLE_EXPLICIT, shapes);
+            return this.last;
+        }
+
+        private TomlArray toArray() {
+            var tables = new ArrayList<TomlValue>(this.tables.size() + 1);
+            tables.addAll(this.tables);
+            tables.add(this.last.toTable());
+            return TomlArray.of(tables);
+        }
     }
 
     TomlTable toTable() {
-        return this.table;
+        var size = this.entries == null ? 0 : this.entries.size();
+        var keys = new String[size];
+        var values = new TomlValue[size];
+        if (this.entries != null) {
+            var position = 0;
+            for (var entry : this.entries.entrySet()) {
+                keys[position] = entry.getKey();
+                values[position] = toValue(entry.getValue());
+                position += 1;
+            }
+        }
+        return this.shapes.table(keys, values);
+    }
+
+    private static TomlValue toValue(Object entry) {
+        if (entry instanceof TomlValue value) {
+            return value;
+        } else if (entry instanceof TomlTableBuilder subTable) {
+            return subTable.toTable();
+        } else {
+            return ((ArrayOfTables) entry).toArray();
+        }
+    }
+
+    private LinkedHashMap<String, Object> entries() {
+        if (this.entries == null) {
+            this.entries = new LinkedHashMap<>();
+        }
+        return this.entries;
     }
 
     TomlTableBuilder getOrCreateSubTable(TomlKey key, DefinedBy definedBy) {
-        var subTable = this.subTableBuilders.get(key.value());
+        var entry = this.entries == null ? null : this.entries.get(key.value());
 
-        if (subTable == null) {
-            if (this.keyValuePairs.containsKey(key.value())) {
-                throw new TomlDuplicateKeyError(key.value(), key.sourceRange());
-            }
+        TomlTableBuilder subTable;
+        if (entry == null) {
+            subTable = new TomlTableBuilder(definedBy, this.shapes);
+            this.entries().put(key.value(), subTable);
+            return subTable;
+        } else if (entry instanceof TomlTableBuilder existingSubTable) {
+            subTable = existingSubTable;
+        } else if (entry instanceof ArrayOfTables arrayOfTables) {
+            subTable = arrayOfTables.last;
+        } else {
+            throw new TomlDuplicateKeyError(key.value(), key.sourceRange());
+        }
 
-            subTable = new TomlTableBuilder(definedBy);
-            this.subTableBuilders.put(key.value(), subTable);
-            var pair = TomlKeyValuePair.of(key.value(), subTable.table);
-            this.keyValuePairs.put(key.value(), pair);
-        } else if (subTable.definedBy == DefinedBy.INLINE) {
+        if (subTable.definedBy == DefinedBy.INLINE) {
             throw new TomlDuplicateKeyError(key.value(), key.sourceRange());
         } else if (subTable.definedBy == DefinedBy.TABLE_EXPLICIT) {
             if (definedBy != DefinedBy.TABLE_IMPLICIT) {
@@ -76,26 +145,24 @@ class TomlTableBuilder {
     TomlTableBuilder createArraySubTable(TomlKey key) {
         // TODO: handle inline array
 
-        if (!this.arrayOfTables.containsKey(key.value())) {
-            if (this.keyValuePairs.containsKey(key.value())) {
-                throw new TomlDuplicateKeyError(key.value(), key.sourceRange());
-            }
+        var entries = this.entries();
+        var entry = entries.get(key.value());
 
-            var arrayOfTables = new ArrayList<TomlValue>();
-            this.arrayOfTables.put(key.value(), arrayOfTables);
-            var pair = TomlKeyValuePair.of(key.value(), TomlArray.of(arrayOfTables));
-            this.keyValuePairs.put(key.value(), pair);
+        ArrayOfTables arrayOfTables;
+        if (entry == null) {
+            arrayOfTables = new ArrayOfTables();
+            entries.put(key.value(), arrayOfTables);
+        } else if (entry instanceof ArrayOfTables existingArrayOfTables) {
+            arrayOfTables = existingArrayOfTables;
+        } else {
+            throw new TomlDuplicateKeyError(key.value(), key.sourceRange());
         }
 
-        var subTable = new TomlTableBuilder(DefinedBy.TABLE_EXPLICIT);
-        this.arrayOfTables.get(key.value()).add(subTable.table);
-        this.subTableBuilders.put(key.value(), subTable);
-        return subTable;
+        return arrayOfTables.add(this.shapes);
     }
 
     void add(TomlKey key, TomlValue value) {
-        var pair = TomlKeyValuePair.of(key.value(), value);
-        var currentValue = this.keyValuePairs.putIfAbsent(key.value(), pair);
+        var currentValue = this.entries().putIfAbsent(key.value(), value);
         if (currentValue != null) {
             throw new TomlDuplicateKeyError(key.value(), key.sourceRange());
         }
@@ -0,0 +1,21 @@
+package org.zwobble.toml.sources;
+
+/**
+ * Finds the line and column of positions in a TOML document.
+ * <p>
+ * Source ranges created with a line index, using
+ * {@link SourceRange#of(SourcePosition, SourcePosition, LineIndex)}, use it
+ * to find their line and column when requested.
+ */
+public interface LineIndex {
+    /**
+     * The line of the code point at the given index, starting from 1.
+     */
+    int line(int codePointIndex);
+
+    /**
+     * The column of the code point at the given index in code points,
+     * starting from 1.
+     */
+    int column(int codePointIndex);
+}
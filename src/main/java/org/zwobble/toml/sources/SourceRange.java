@@ -1,22 +1,120 @@
 package org.zwobble.toml.sources;
 
+import java.util.Objects;
+import java.util.OptionalInt;
+
 public class SourceRange {
-    private final SourcePosition start;
-    private final SourcePosition end;
+    /**
+     * Create a source range whose line and column can be found using a line
+     * index.
+     *
+     * @param lineIndex The index of the lines of the document, or null if the
+     *                  line and column of the range can't be found.
+     */
+    public static SourceRange of(SourcePosition start, SourcePosition end, LineIndex lineIndex) {
+        return new SourceRange(start, end, lineIndex);
+    }
+
+    /**
+     * Create a source range from the value returned by {@link #packed()}.
+     *
+     * @param lineIndex The index of the lines of the document, or null if the
+     *                  line and column of the range can't be found.
+     */
+    public static SourceRange unpack(long packed, LineIndex lineIndex) {
+        return new SourceRange(packed, lineIndex);
+    }
+
+    /**
+     * The start code point index in the high 32 bits and the end code point
+     * index in the low 32 bits. Positions are only created when requested.
+     */
+    private final long packed;
+    private final LineIndex lineIndex;
 
     SourceRange(
         SourcePosition start,
         SourcePosition end
     ) {
-        this.start = start;
-        this.end = end;
+        this(start, end, null);
+    }
+
+    SourceRange(
+        SourcePosition start,
+        SourcePosition end,
+        LineIndex lineIndex
+    ) {
+        this(((long) start.codePointIndex() << 32) | (end.codePointIndex() & 0xffffffffL), lineIndex);
+    }
+
+    private SourceRange(long packed, LineIndex lineIndex) {
+        this.packed = packed;
+        this.lineIndex = lineIndex;
     }
 
     public SourcePosition start() {
-        return start;
+        return new SourcePosition((int) (packed >> 32));
     }
 
     public SourcePosition end() {
-        return end;
+        return new SourcePosition((int) packed);
+    }
+
+    /**
+     * The start and end of the range packed into a long, which can be stored
+     * instead of the range, and turned back into the range with
+     * {@link #unpack(long, LineIndex)} and the {@link #lineIndex()}.
+     */
+    public long packed() {
+        return packed;
+    }
+
+    /**
+     * The index used to find the line and column of the range, or null if
+     * the range wasn't created with a {@link LineIndex}.
+     */
+    public LineIndex lineIndex() {
+        return lineIndex;
+    }
+
+    /**
+     * The line of the start of the range, starting from 1, or empty if the
+     * range wasn't created with a {@link LineIndex}.
+     */
+    public OptionalInt startLine() {
+        return lineIndex == null
+            ? OptionalInt.empty()
+            : OptionalInt.of(lineIndex.line((int) (packed >> 32)));
+    }
+
+    /**
+     * The column of the start of the range in code points, starting from 1,
+     * or empty if the range wasn't created with a {@link LineIndex}.
+     */
+    public OptionalInt startColumn() {
+        return lineIndex == null
+            ? OptionalInt.empty()
+            : OptionalInt.of(lineIndex.column((int) (packed >> 32)));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SourceRange sourceRange = (SourceRange) o;
+        return packed == sourceRange.packed;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(packed);
+    }
+
+    @Override
+    public String toString() {
+        return "SourceRange(" +
+            "start=" + start() +
+            ", end=" + end() +
+            ')';
     }
 }
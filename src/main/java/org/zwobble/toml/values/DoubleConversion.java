@@ -0,0 +1,155 @@
+package org.zwobble.toml.values;
+
+import java.math.BigInteger;
+
+/**
+ * Converts a decimal significand and exponent to the nearest double using
+ * the Eisel-Lemire algorithm.
+ * <p>
+ * The result is the same as {@link Double#parseDouble(String)}. In the rare
+ * cases that the algorithm can't determine the correctly rounded result, the
+ * conversion fails, and the caller should fall back to
+ * {@link Double#parseDouble(String)}.
+ */
+final class DoubleConversion {
+    private static final int SMALLEST_POWER_OF_TEN = -342;
+    private static final int LARGEST_POWER_OF_TEN = 308;
+
+    private static final int MANTISSA_EXPLICIT_BITS = 52;
+    private static final int MINIMUM_EXPONENT = -1023;
+    private static final int INFINITE_POWER = 0x7ff;
+    private static final int MIN_EXPONENT_ROUND_TO_EVEN = -4;
+    private static final int MAX_EXPONENT_ROUND_TO_EVEN = 23;
+
+    /**
+     * The most significant 128 bits of each power of five from
+     * {@link #SMALLEST_POWER_OF_TEN} to {@link #LARGEST_POWER_OF_TEN}, as
+     * pairs of the high and low 64 bits.
+     */
+    private static final long[] POWERS_OF_FIVE = powersOfFive();
+
+    private DoubleConversion() {
+    }
+
+    /**
+     * Get the bits of the double nearest to {@code significand * 10^exponent}.
+     *
+     * @param significand The significand, treated as an unsigned value.
+     * @param exponent The power of ten.
+     * @return The bits of the non-negative double, or -1 if the result can't
+     * be determined.
+     */
+    static long toDoubleBits(long significand, int exponent) {
+        if (significand == 0 || exponent < SMALLEST_POWER_OF_TEN) {
+            return 0;
+        }
+        if (exponent > LARGEST_POWER_OF_TEN) {
+            return (long) INFINITE_POWER << MANTISSA_EXPLICIT_BITS;
+        }
+
+        var leadingZeroes = Long.numberOfLeadingZeros(significand);
+        var normalizedSignificand = significand << leadingZeroes;
+
+        // Only the most significant 55 bits of the product are needed, so
+        // the second half of the power is only used when those bits might be
+        // affected by it.
+        var index = 2 * (exponent - SMALLEST_POWER_OF_TEN);
+        var productHigh = Math.unsignedMultiplyHigh(normalizedSignificand, POWERS_OF_FIVE[index]);
+        var productLow = normalizedSignificand * POWERS_OF_FIVE[index];
+        var precisionMask = -1L >>> (MANTISSA_EXPLICIT_BITS + 3);
+        if ((productHigh & precisionMask) == precisionMask) {
+            var secondProductHigh = Math.unsignedMultiplyHigh(normalizedSignificand, POWERS_OF_FIVE[index + 1]);
+            productLow += secondProductHigh;
+            if (Long.compareUnsigned(secondProductHigh, productLow) > 0) {
+                productHigh += 1;
+            }
+        }
+
+        if (productLow == -1L && (exponent < -27 || exponent > 55)) {
+            return -1;
+        }
+
+        var upperBit = (int) (productHigh >>> 63);
+        var mantissa = productHigh >>> (upperBit + 64 - MANTISSA_EXPLICIT_BITS - 3);
+        var power2 = power(exponent) + upperBit - leadingZeroes - MINIMUM_EXPONENT;
+
+        if (power2 <= 0) {
+            // Subnormal
+            if (-power2 + 1 >= 64) {
+                return 0;
+            }
+            mantissa >>>= -power2 + 1;
+            mantissa += mantissa & 1;
+            mantissa >>>= 1;
+            power2 = mantissa < (1L << MANTISSA_EXPLICIT_BITS) ? 0 : 1;
+            return ((long) power2 << MANTISSA_EXPLICIT_BITS) | (mantissa & ~(1L << MANTISSA_EXPLICIT_BITS));
+        }
+
+        // If the product is exactly halfway between two doubles, round to
+        // even rather than up.
+        if (
+            Long.compareUnsigned(productLow, 1) <= 0 &&
+                exponent >= MIN_EXPONENT_ROUND_TO_EVEN &&
+                exponent <= MAX_EXPONENT_ROUND_TO_EVEN &&
+                (mantissa & 3) == 1 &&
+                (mantissa << (upperBit + 64 - MANTISSA_EXPLICIT_BITS - 3)) == productHigh
+        ) {
+            mantissa &= ~1L;
+        }
+
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= (2L << MANTISSA_EXPLICIT_BITS)) {
+            mantissa = 1L << MANTISSA_EXPLICIT_BITS;
+            power2 += 1;
+        }
+        mantissa &= ~(1L << MANTISSA_EXPLICIT_BITS);
+
+        if (power2 >= INFINITE_POWER) {
+            return (long) INFINITE_POWER << MANTISSA_EXPLICIT_BITS;
+        }
+
+        return ((long) power2 << MANTISSA_EXPLICIT_BITS) | mantissa;
+    }
+
+    /**
+     * An approximation of {@code floor(log2(10^exponent)) + 63}.
+     */
+    private static int power(int exponent) {
+        return (((152170 + 65536) * exponent) >> 16) + 63;
+    }
+
+    private static long[] powersOfFive() {
+        var powers = new long[2 * (LARGEST_POWER_OF_TEN - SMALLEST_POWER_OF_TEN + 1)];
+        var five = BigInteger.valueOf(5);
+
+        var powerOfFive = BigInteger.ONE;
+        for (var exponent = -1; exponent >= SMALLEST_POWER_OF_TEN; exponent--) {
+            // The reciprocal, rounded up.
+            powerOfFive = powerOfFive.multiply(five);
+            var bitLength = powerOfFive.bitLength();
+            var shift = exponent >= -27 ? bitLength + 127 : 2 * bitLength + 128;
+            var power = BigInteger.ONE.shiftLeft(shift).divide(powerOfFive).add(BigInteger.ONE);
+            setPower(powers, exponent, power.shiftRight(Math.max(0, power.bitLength() - 128)));
+        }
+
+        powerOfFive = BigInteger.ONE;
+        for (var exponent = 0; exponent <= LARGEST_POWER_OF_TEN; exponent++) {
+            // Truncated to the most significant 128 bits.
+            var bitLength = powerOfFive.bitLength();
+            var power = bitLength < 128
+                ? powerOfFive.shiftLeft(128 - bitLength)
+                : powerOfFive.shiftRight(bitLength - 128);
+            setPower(powers, exponent, power);
+            powerOfFive = powerOfFive.multiply(five);
+        }
+
+        return powers;
+    }
+
+    private static void setPower(long[] powers, int exponent, BigInteger power) {
+        var index = 2 * (exponent - SMALLEST_POWER_OF_TEN);
+        powers[index] = power.shiftRight(64).longValue();
+        powers[index + 1] = power.longValue();
+    }
+}
@@ -0,0 +1,97 @@
+package org.zwobble.toml.values;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoField;
+
+/**
+ * Compact dates and times store their fields packed into longs, and create
+ * the java.time value each time it's needed, rather than retaining the
+ * java.time objects.
+ * <p>
+ * A date is packed as its year, month and day, a time as its nanosecond of
+ * the day, and an offset alongside the date as its total seconds.
+ */
+final class PackedDateTimes {
+    private static final int MONTH_SHIFT = 5;
+    private static final int YEAR_SHIFT = 9;
+    private static final int DAY_MASK = (1 << MONTH_SHIFT) - 1;
+    private static final int MONTH_MASK = (1 << (YEAR_SHIFT - MONTH_SHIFT)) - 1;
+
+    private static final int OFFSET_BITS = 17;
+    private static final int OFFSET_MASK = (1 << OFFSET_BITS) - 1;
+    private static final int MAX_OFFSET_SECONDS = 18 * 60 * 60;
+
+    private PackedDateTimes() {
+    }
+
+    static long packDate(LocalDate date) {
+        return packDate(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+    }
+
+    /**
+     * @throws DateTimeException if the fields aren't a valid date.
+     */
+    static long packDate(int year, int month, int dayOfMonth) {
+        ChronoField.YEAR.checkValidValue(year);
+        ChronoField.MONTH_OF_YEAR.checkValidValue(month);
+        ChronoField.DAY_OF_MONTH.checkValidValue(dayOfMonth);
+        if (dayOfMonth > 28 && dayOfMonth > Month.of(month).length(Year.isLeap(year))) {
+            throw new DateTimeException(
+                "Invalid date '" + Month.of(month).name() + " " + dayOfMonth + "' in year " + year
+            );
+        }
+        return ((long) year << YEAR_SHIFT) | ((long) month << MONTH_SHIFT) | dayOfMonth;
+    }
+
+    static LocalDate unpackDate(long packed) {
+        return LocalDate.of(
+            (int) (packed >> YEAR_SHIFT),
+            (int) (packed >> MONTH_SHIFT) & MONTH_MASK,
+            (int) packed & DAY_MASK
+        );
+    }
+
+    static long packTime(LocalTime time) {
+        return time.toNanoOfDay();
+    }
+
+    /**
+     * @throws DateTimeException if the fields aren't a valid time.
+     */
+    static long packTime(int hour, int minute, int second, int nanoOfSecond) {
+        ChronoField.HOUR_OF_DAY.checkValidValue(hour);
+        ChronoField.MINUTE_OF_HOUR.checkValidValue(minute);
+        ChronoField.SECOND_OF_MINUTE.checkValidValue(second);
+        ChronoField.NANO_OF_SECOND.checkValidValue(nanoOfSecond);
+        return ((hour * 60L + minute) * 60 + second) * 1_000_000_000L + nanoOfSecond;
+    }
+
+    static LocalTime unpackTime(long packed) {
+        return LocalTime.ofNanoOfDay(packed);
+    }
+
+    static long packDateAndOffset(LocalDate date, ZoneOffset offset) {
+        return packDateAndOffset(packDate(date), offset.getTotalSeconds());
+    }
+
+    /**
+     * @throws DateTimeException if the offset isn't valid.
+     */
+    static long packDateAndOffset(long packedDate, int offsetTotalSeconds) {
+        ChronoField.OFFSET_SECONDS.checkValidValue(offsetTotalSeconds);
+        return (packedDate << OFFSET_BITS) | (offsetTotalSeconds + MAX_OFFSET_SECONDS);
+    }
+
+    static LocalDate unpackDateFromDateAndOffset(long packed) {
+        return unpackDate(packed >> OFFSET_BITS);
+    }
+
+    static ZoneOffset unpackOffsetFromDateAndOffset(long packed) {
+        return ZoneOffset.ofTotalSeconds((int) (packed & OFFSET_MASK) - MAX_OFFSET_SECONDS);
+    }
+}
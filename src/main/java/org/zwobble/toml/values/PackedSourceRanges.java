@@ -0,0 +1,39 @@
+package org.zwobble.toml.values;
+
+import org.zwobble.toml.sources.LineIndex;
+import org.zwobble.toml.sources.SourceRange;
+
+/**
+ * Values store their source range packed into a long, alongside the line
+ * index of the document, and create the {@link SourceRange} each time it's
+ * requested, rather than retaining a {@link SourceRange} for each value.
+ * Null source ranges are packed as {@link #NONE}.
+ */
+final class PackedSourceRanges {
+    /**
+     * A value without a source range. Code point indexes aren't negative, so
+     * no packed source range is -1.
+     */
+    static final long NONE = -1;
+
+    private PackedSourceRanges() {
+    }
+
+    static long pack(SourceRange sourceRange) {
+        if (sourceRange == null) {
+            return NONE;
+        }
+        return sourceRange.packed();
+    }
+
+    static LineIndex lineIndex(SourceRange sourceRange) {
+        return sourceRange == null ? null : sourceRange.lineIndex();
+    }
+
+    static SourceRange unpack(long packed, LineIndex lineIndex) {
+        if (packed == NONE) {
+            return null;
+        }
+        return SourceRange.unpack(packed, lineIndex);
+    }
+}
@@ -1,17 +1,76 @@
 package org.zwobble.toml.values;
 
-import java.util.Iterator;
-import java.util.List;
-import java.util.Objects;
+import org.zwobble.toml.sources.LineIndex;
+import org.zwobble.toml.sources.SourceRange;
+
+import java.util.*;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
 
 /**
  * An array of TOML values.
+ * <p>
+ * Arrays where every element is an integer, every element is a float, or
+ * every element is a boolean can be stored compactly as primitives, in which
+ * case the elements are only created as TOML values when they're read as
+ * TOML values. The primitive accessors, such as {@link #getLong(int)} and
+ * {@link #longStream()}, read the primitives directly.
  */
 public final class TomlArray implements TomlValue, Iterable<TomlValue> {
     public static TomlArray of(List<TomlValue> elements) {
         return new TomlArray(elements);
     }
 
+    /**
+     * Create an array of integers, stored as primitives.
+     * <p>
+     * The arrays must not be modified after this method is called.
+     *
+     * @param values The values of the elements.
+     * @param sourceRanges The source ranges of the elements, as returned by
+     *                     {@link SourceRange#packed()}, or null if the
+     *                     elements have no source ranges.
+     * @param lineIndex The line index of the source ranges, or null if their
+     *                  line and column can't be found.
+     */
+    public static TomlArray ofLongs(long[] values, long[] sourceRanges, LineIndex lineIndex) {
+        return new TomlArray(new LongElements(values, SourceRanges.of(values.length, sourceRanges, lineIndex)));
+    }
+
+    /**
+     * Create an array of floats, stored as primitives.
+     * <p>
+     * The arrays must not be modified after this method is called.
+     *
+     * @param values The values of the elements.
+     * @param sourceRanges The source ranges of the elements, as returned by
+     *                     {@link SourceRange#packed()}, or null if the
+     *                     elements have no source ranges.
+     * @param lineIndex The line index of the source ranges, or null if their
+     *                  line and column can't be found.
+     */
+    public static TomlArray ofDoubles(double[] values, long[] sourceRanges, LineIndex lineIndex) {
+        return new TomlArray(new DoubleElements(values, SourceRanges.of(values.length, sourceRanges, lineIndex)));
+    }
+
+    /**
+     * Create an array of booleans, stored as bits.
+     * <p>
+     * The bit set and source ranges must not be modified after this method
+     * is called.
+     *
+     * @param values The values of the elements.
+     * @param size The number of elements.
+     * @param sourceRanges The source ranges of the elements, as returned by
+     *                     {@link SourceRange#packed()}, or null if the
+     *                     elements have no source ranges.
+     * @param lineIndex The line index of the source ranges, or null if their
+     *                  line and column can't be found.
+     */
+    public static TomlArray ofBooleans(BitSet values, int size, long[] sourceRanges, LineIndex lineIndex) {
+        return new TomlArray(new BooleanElements(values, size, SourceRanges.of(size, sourceRanges, lineIndex)));
+    }
+
     private final List<TomlValue> elements;
 
     private TomlArray(List<TomlValue> elements) {
@@ -25,6 +84,97 @@ public final class TomlArray implements TomlValue, Iterable<TomlValue> {
         return this.elements;
     }
 
+    /**
+     * The number of elements in the array.
+     */
+    public int size() {
+        return this.elements.size();
+    }
+
+    /**
+     * Get an element of the array.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public TomlValue get(int index) {
+        return this.elements.get(index);
+    }
+
+    /**
+     * Get the value of an integer element of the array.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     * @throws ClassCastException if the element isn't an integer.
+     */
+    public long getLong(int index) {
+        if (this.elements instanceof LongElements longs) {
+            return longs.getLong(index);
+        }
+        return ((TomlInt) this.elements.get(index)).value();
+    }
+
+    /**
+     * Get the value of a float element of the array.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     * @throws ClassCastException if the element isn't a float.
+     */
+    public double getDouble(int index) {
+        if (this.elements instanceof DoubleElements doubles) {
+            return doubles.getDouble(index);
+        }
+        return ((TomlFloat) this.elements.get(index)).value();
+    }
+
+    /**
+     * Get the value of a boolean element of the array.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     * @throws ClassCastException if the element isn't a boolean.
+     */
+    public boolean getBoolean(int index) {
+        if (this.elements instanceof BooleanElements booleans) {
+            return booleans.getBoolean(index);
+        }
+        return ((TomlBool) this.elements.get(index)).value();
+    }
+
+    /**
+     * The values of the elements of an array of integers.
+     * <p>
+     * A {@link ClassCastException} is thrown when the stream reaches an
+     * element that isn't an integer.
+     */
+    public LongStream longStream() {
+        if (this.elements instanceof LongElements longs) {
+            return Arrays.stream(longs.values);
+        }
+        return this.elements.stream().mapToLong(element -> ((TomlInt) element).value());
+    }
+
+    /**
+     * The values of the elements of an array of floats.
+     * <p>
+     * A {@link ClassCastException} is thrown when the stream reaches an
+     * element that isn't a float.
+     */
+    public DoubleStream doubleStream() {
+        if (this.elements instanceof DoubleElements doubles) {
+            return Arrays.stream(doubles.values);
+        }
+        return this.elements.stream().mapToDouble(element -> ((TomlFloat) element).value());
+    }
+
+    /**
+     * Whether the elements are stored as primitives, rather than as TOML
+     * values.
+     */
+    boolean isPrimitive() {
+        return elements instanceof LongElements ||
+            elements instanceof DoubleElements ||
+            elements instanceof BooleanElements;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -49,4 +199,102 @@ public final class TomlArray implements TomlValue, Iterable<TomlValue> {
     public Iterator<TomlValue> iterator() {
         return elements.iterator();
     }
+
+    /**
+     * The packed source ranges of the elements of a primitive array. If no
+     * element has a source range, the source ranges are null.
+     */
+    private record SourceRanges(long[] sourceRanges, LineIndex lineIndex) {
+        private static final SourceRanges NONE = new SourceRanges(null, null);
+
+        static SourceRanges of(int size, long[] sourceRanges, LineIndex lineIndex) {
+            if (sourceRanges == null) {
+                return NONE;
+            }
+            if (sourceRanges.length != size) {
+                throw new IllegalArgumentException(
+                    "expected " + size + " source ranges, but was " + sourceRanges.length
+                );
+            }
+            return new SourceRanges(sourceRanges, lineIndex);
+        }
+
+        SourceRange get(int index) {
+            return sourceRanges == null ? null : SourceRange.unpack(sourceRanges[index], lineIndex);
+        }
+    }
+
+    private static final class LongElements extends AbstractList<TomlValue> implements RandomAccess {
+        private final long[] values;
+        private final SourceRanges sourceRanges;
+
+        private LongElements(long[] values, SourceRanges sourceRanges) {
+            this.values = values;
+            this.sourceRanges = sourceRanges;
+        }
+
+        long getLong(int index) {
+            return values[index];
+        }
+
+        @Override
+        public TomlValue get(int index) {
+            return TomlInt.of(values[index], sourceRanges.get(index));
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+
+    private static final class DoubleElements extends AbstractList<TomlValue> implements RandomAccess {
+        private final double[] values;
+        private final SourceRanges sourceRanges;
+
+        private DoubleElements(double[] values, SourceRanges sourceRanges) {
+            this.values = values;
+            this.sourceRanges = sourceRanges;
+        }
+
+        double getDouble(int index) {
+            return values[index];
+        }
+
+        @Override
+        public TomlValue get(int index) {
+            return new TomlFloat(values[index], sourceRanges.get(index));
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+
+    private static final class BooleanElements extends AbstractList<TomlValue> implements RandomAccess {
+        private final BitSet values;
+        private final int size;
+        private final SourceRanges sourceRanges;
+
+        private BooleanElements(BitSet values, int size, SourceRanges sourceRanges) {
+            this.values = values;
+            this.size = size;
+            this.sourceRanges = sourceRanges;
+        }
+
+        boolean getBoolean(int index) {
+            return values.get(Objects.checkIndex(index, size));
+        }
+
+        @Override
+        public TomlValue get(int index) {
+            return TomlBool.of(getBoolean(index), sourceRanges.get(index));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
 }
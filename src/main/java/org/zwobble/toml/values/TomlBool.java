@@ -12,5 +12,22 @@ public record TomlBool(
     boolean value,
     SourceRange sourceRange
 ) implements TomlValue {
+    private static final TomlBool TRUE = new TomlBool(true, null);
+    private static final TomlBool FALSE = new TomlBool(false, null);
 
+    /**
+     * Get a TOML boolean. If the source range is null, a shared instance is
+     * returned.
+     *
+     * @param value The boolean value represented by the TOML value.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from, or null.
+     */
+    public static TomlBool of(boolean value, SourceRange sourceRange) {
+        if (sourceRange == null) {
+            return value ? TRUE : FALSE;
+        } else {
+            return new TomlBool(value, sourceRange);
+        }
+    }
 }
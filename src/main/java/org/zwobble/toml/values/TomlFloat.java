@@ -1,12 +1,165 @@
 package org.zwobble.toml.values;
 
+import org.zwobble.toml.sources.LineIndex;
 import org.zwobble.toml.sources.SourceRange;
 
+import java.util.Objects;
+
 /**
  * A TOML float.
- * @param value The floating point value represented by the TOML value.
- * @param sourceRange The portion of the TOML document that this value was
- *                    parsed from.
+ * <p>
+ * The value may be decoded lazily, in which case it is decoded the first
+ * time it is needed. Lazy values are a private subclass, so values created
+ * with the constructor only store the value and its source range, in final
+ * fields.
  */
-public record TomlFloat(double value, SourceRange sourceRange) implements TomlValue {
+public sealed class TomlFloat implements TomlValue {
+    /**
+     * Create a TOML float from its decimal significand and exponent. The
+     * value is decoded the first time it is needed.
+     *
+     * @param isNegative Whether the value is negative.
+     * @param significand The decimal significand, treated as an unsigned
+     *                    value.
+     * @param decimalExponent The power of ten that the significand is
+     *                        multiplied by.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     */
+    public static TomlFloat lazy(
+        boolean isNegative,
+        long significand,
+        int decimalExponent,
+        SourceRange sourceRange
+    ) {
+        return new Lazy(isNegative, significand, decimalExponent, sourceRange);
+    }
+
+    /**
+     * The double nearest to a decimal significand and exponent, as
+     * {@link Double#parseDouble(String)} would return.
+     *
+     * @param isNegative Whether the value is negative.
+     * @param significand The decimal significand, treated as an unsigned
+     *                    value.
+     * @param decimalExponent The power of ten that the significand is
+     *                        multiplied by.
+     */
+    public static double decimalToDouble(boolean isNegative, long significand, int decimalExponent) {
+        var bits = DoubleConversion.toDoubleBits(significand, decimalExponent);
+        var value = bits == -1
+            ? Double.parseDouble(Long.toUnsignedString(significand) + "e" + decimalExponent)
+            : Double.longBitsToDouble(bits);
+        return isNegative ? -value : value;
+    }
+
+    private final double value;
+    /**
+     * The source range packed by {@link PackedSourceRanges}, which is only
+     * created as a {@link SourceRange} when requested.
+     */
+    private final long sourceRange;
+    private final LineIndex lineIndex;
+
+    /**
+     * @param value The floating point value represented by the TOML value.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     */
+    public TomlFloat(double value, SourceRange sourceRange) {
+        this.value = value;
+        this.sourceRange = PackedSourceRanges.pack(sourceRange);
+        this.lineIndex = PackedSourceRanges.lineIndex(sourceRange);
+    }
+
+    /**
+     * The floating point value represented by the TOML value.
+     */
+    public double value() {
+        return value;
+    }
+
+    /**
+     * Whether the value has been decoded, or was never lazy.
+     */
+    boolean isDecoded() {
+        return true;
+    }
+
+    /**
+     * The portion of the TOML document that this value was parsed from.
+     */
+    public SourceRange sourceRange() {
+        return PackedSourceRanges.unpack(sourceRange, lineIndex);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TomlFloat tomlFloat)) return false;
+        return Double.compare(value(), tomlFloat.value()) == 0 &&
+            sourceRange == tomlFloat.sourceRange;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(value(), sourceRange);
+    }
+
+    @Override
+    public String toString() {
+        return "TomlFloat[" +
+            "value=" + value() +
+            ", sourceRange=" + sourceRange() +
+            ']';
+    }
+
+    /**
+     * A float that keeps its decimal significand and exponent until the value
+     * is first needed.
+     */
+    private static final class Lazy extends TomlFloat {
+        /**
+         * The bits of the value, or the significand if the value hasn't been
+         * decoded yet.
+         */
+        private long bits;
+        private final int decimalExponent;
+        private final boolean isNegative;
+        private volatile boolean isLazy;
+
+        private Lazy(
+            boolean isNegative,
+            long significand,
+            int decimalExponent,
+            SourceRange sourceRange
+        ) {
+            super(0, sourceRange);
+            this.bits = significand;
+            this.decimalExponent = decimalExponent;
+            this.isNegative = isNegative;
+            this.isLazy = true;
+        }
+
+        @Override
+        public double value() {
+            if (isLazy) {
+                decode();
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        private synchronized void decode() {
+            if (isLazy) {
+                bits = Double.doubleToRawLongBits(decimalToDouble(isNegative, bits, decimalExponent));
+                // Clearing the volatile flag publishes the value.
+                isLazy = false;
+            }
+        }
+
+        @Override
+        boolean isDecoded() {
+            return !isLazy;
+        }
+    }
 }
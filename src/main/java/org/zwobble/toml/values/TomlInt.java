@@ -9,5 +9,31 @@ import org.zwobble.toml.sources.SourceRange;
  *                    parsed from.
  */
 public record TomlInt(long value, SourceRange sourceRange) implements TomlValue {
+    /**
+     * Get a TOML integer. If the source range is null and the value is small,
+     * a shared instance is returned.
+     *
+     * @param value The integer value represented by the TOML value.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from, or null.
+     */
+    public static TomlInt of(long value, SourceRange sourceRange) {
+        if (sourceRange == null && value >= Cache.LOW && value <= Cache.HIGH) {
+            return Cache.VALUES[(int) (value - Cache.LOW)];
+        } else {
+            return new TomlInt(value, sourceRange);
+        }
+    }
 
+    private static final class Cache {
+        private static final int LOW = -128;
+        private static final int HIGH = 1023;
+        private static final TomlInt[] VALUES = new TomlInt[HIGH - LOW + 1];
+
+        static {
+            for (var index = 0; index < VALUES.length; index++) {
+                VALUES[index] = new TomlInt(index + LOW, null);
+            }
+        }
+    }
 }
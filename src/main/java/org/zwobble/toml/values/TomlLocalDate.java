@@ -1,17 +1,189 @@
 package org.zwobble.toml.values;
 
+import org.zwobble.toml.sources.LineIndex;
 import org.zwobble.toml.sources.SourceRange;
 
 import java.time.LocalDate;
+import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * A TOML local date.
- * @param value The local date represented by the TOML value.
- * @param sourceRange The portion of the TOML document that this value was
- *                    parsed from.
+ * <p>
+ * The value may be decoded lazily, in which case it is decoded the first
+ * time it is needed, or stored compactly, in which case a new
+ * {@link LocalDate} is created each time it is needed. Lazy and compact
+ * values are private subclasses, so values created with the constructor only
+ * store the value and its source range, in final fields.
  */
-public record TomlLocalDate(
-    LocalDate value,
-    SourceRange sourceRange
-) implements TomlValue {
+public sealed class TomlLocalDate implements TomlValue {
+    /**
+     * Create a TOML local date whose value is decoded the first time it is
+     * needed. The decoder is called at most once, unless it throws.
+     *
+     * @param decoder Decodes the local date represented by the TOML value.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     */
+    public static TomlLocalDate lazy(Supplier<LocalDate> decoder, SourceRange sourceRange) {
+        return new Lazy(Objects.requireNonNull(decoder), sourceRange);
+    }
+
+    /**
+     * Create a TOML local date that stores the year, month and day, rather
+     * than the {@link LocalDate} itself, which uses less memory when many
+     * values are retained. A new {@link LocalDate} is created each time the
+     * value is needed.
+     *
+     * @param value The local date represented by the TOML value.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     */
+    public static TomlLocalDate compact(LocalDate value, SourceRange sourceRange) {
+        return new Compact(PackedDateTimes.packDate(value), sourceRange);
+    }
+
+    /**
+     * Create a TOML local date that stores the year, month and day, as with
+     * {@link #compact(LocalDate, SourceRange)}, without creating a
+     * {@link LocalDate}.
+     *
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     * @throws java.time.DateTimeException if the fields are out of range.
+     */
+    public static TomlLocalDate compact(
+        int year,
+        int month,
+        int dayOfMonth,
+        SourceRange sourceRange
+    ) {
+        return new Compact(PackedDateTimes.packDate(year, month, dayOfMonth), sourceRange);
+    }
+
+    private final LocalDate value;
+    /**
+     * The source range packed by {@link PackedSourceRanges}, which is only
+     * created as a {@link SourceRange} when requested.
+     */
+    private final long sourceRange;
+    private final LineIndex lineIndex;
+
+    /**
+     * @param value The local date represented by the TOML value.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     */
+    public TomlLocalDate(LocalDate value, SourceRange sourceRange) {
+        this.value = value;
+        this.sourceRange = PackedSourceRanges.pack(sourceRange);
+        this.lineIndex = PackedSourceRanges.lineIndex(sourceRange);
+    }
+
+    /**
+     * The local date represented by the TOML value.
+     */
+    public LocalDate value() {
+        return value;
+    }
+
+    /**
+     * Whether the fields of the value are stored, rather than the value.
+     */
+    boolean isCompact() {
+        return false;
+    }
+
+    /**
+     * Whether the value has been decoded, or was never lazy.
+     */
+    boolean isDecoded() {
+        return true;
+    }
+
+    /**
+     * The portion of the TOML document that this value was parsed from.
+     */
+    public SourceRange sourceRange() {
+        return PackedSourceRanges.unpack(sourceRange, lineIndex);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TomlLocalDate tomlLocalDate)) return false;
+        return Objects.equals(value(), tomlLocalDate.value()) &&
+            sourceRange == tomlLocalDate.sourceRange;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(value(), sourceRange);
+    }
+
+    @Override
+    public String toString() {
+        return "TomlLocalDate[" +
+            "value=" + value() +
+            ", sourceRange=" + sourceRange() +
+            ']';
+    }
+
+    /**
+     * A local date that stores the year, month and day packed into a long.
+     */
+    private static final class Compact extends TomlLocalDate {
+        private final long packedDate;
+
+        private Compact(long packedDate, SourceRange sourceRange) {
+            super(null, sourceRange);
+            this.packedDate = packedDate;
+        }
+
+        @Override
+        public LocalDate value() {
+            return PackedDateTimes.unpackDate(packedDate);
+        }
+
+        @Override
+        boolean isCompact() {
+            return true;
+        }
+    }
+
+    /**
+     * A local date that calls its decoder the first time the value is
+     * needed.
+     */
+    private static final class Lazy extends TomlLocalDate {
+        private LocalDate decoded;
+        private volatile Supplier<LocalDate> decoder;
+
+        private Lazy(Supplier<LocalDate> decoder, SourceRange sourceRange) {
+            super(null, sourceRange);
+            this.decoder = decoder;
+        }
+
+        @Override
+        public LocalDate value() {
+            if (decoder != null) {
+                decode();
+            }
+            return decoded;
+        }
+
+        private synchronized void decode() {
+            var decoder = this.decoder;
+            if (decoder != null) {
+                decoded = decoder.get();
+                // Clearing the volatile decoder publishes the value.
+                this.decoder = null;
+            }
+        }
+
+        @Override
+        boolean isDecoded() {
+            return decoder == null;
+        }
+    }
 }
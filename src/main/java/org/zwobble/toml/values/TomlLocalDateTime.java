@@ -1,17 +1,207 @@
 package org.zwobble.toml.values;
 
+import org.zwobble.toml.sources.LineIndex;
 import org.zwobble.toml.sources.SourceRange;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * A TOML local date-time.
- * @param value The local date-time represented by the TOML value.
- * @param sourceRange The portion of the TOML document that this value was
- *                    parsed from.
+ * <p>
+ * The value may be decoded lazily, in which case it is decoded the first
+ * time it is needed, or stored compactly, in which case a new
+ * {@link LocalDateTime} is created each time it is needed. Lazy and compact
+ * values are private subclasses, so values created with the constructor only
+ * store the value and its source range, in final fields.
  */
-public record TomlLocalDateTime(
-    LocalDateTime value,
-    SourceRange sourceRange
-) implements TomlValue {
+public sealed class TomlLocalDateTime implements TomlValue {
+    /**
+     * Create a TOML local date-time whose value is decoded the first time it is
+     * needed. The decoder is called at most once, unless it throws.
+     *
+     * @param decoder Decodes the local date-time represented by the TOML value.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     */
+    public static TomlLocalDateTime lazy(Supplier<LocalDateTime> decoder, SourceRange sourceRange) {
+        return new Lazy(Objects.requireNonNull(decoder), sourceRange);
+    }
+
+    /**
+     * Create a TOML local date-time that stores the fields of the date and
+     * time, rather than the {@link LocalDateTime} itself, which uses less
+     * memory when many values are retained. A new {@link LocalDateTime} is
+     * created each time the value is needed.
+     *
+     * @param value The local date-time represented by the TOML value.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     */
+    public static TomlLocalDateTime compact(LocalDateTime value, SourceRange sourceRange) {
+        return new Compact(
+            PackedDateTimes.packDate(value.toLocalDate()),
+            PackedDateTimes.packTime(value.toLocalTime()),
+            sourceRange
+        );
+    }
+
+    /**
+     * Create a TOML local date-time that stores the fields of the date and
+     * time, as with {@link #compact(LocalDateTime, SourceRange)}, without
+     * creating a {@link LocalDateTime}.
+     *
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     * @throws java.time.DateTimeException if the fields are out of range.
+     */
+    public static TomlLocalDateTime compact(
+        int year,
+        int month,
+        int dayOfMonth,
+        int hour,
+        int minute,
+        int second,
+        int nanoOfSecond,
+        SourceRange sourceRange
+    ) {
+        return new Compact(
+            PackedDateTimes.packDate(year, month, dayOfMonth),
+            PackedDateTimes.packTime(hour, minute, second, nanoOfSecond),
+            sourceRange
+        );
+    }
+
+    private final LocalDateTime value;
+    /**
+     * The source range packed by {@link PackedSourceRanges}, which is only
+     * created as a {@link SourceRange} when requested.
+     */
+    private final long sourceRange;
+    private final LineIndex lineIndex;
+
+    /**
+     * @param value The local date-time represented by the TOML value.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     */
+    public TomlLocalDateTime(LocalDateTime value, SourceRange sourceRange) {
+        this.value = value;
+        this.sourceRange = PackedSourceRanges.pack(sourceRange);
+        this.lineIndex = PackedSourceRanges.lineIndex(sourceRange);
+    }
+
+    /**
+     * The local date-time represented by the TOML value.
+     */
+    public LocalDateTime value() {
+        return value;
+    }
+
+    /**
+     * Whether the fields of the value are stored, rather than the value.
+     */
+    boolean isCompact() {
+        return false;
+    }
+
+    /**
+     * Whether the value has been decoded, or was never lazy.
+     */
+    boolean isDecoded() {
+        return true;
+    }
+
+    /**
+     * The portion of the TOML document that this value was parsed from.
+     */
+    public SourceRange sourceRange() {
+        return PackedSourceRanges.unpack(sourceRange, lineIndex);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TomlLocalDateTime tomlLocalDateTime)) return false;
+        return Objects.equals(value(), tomlLocalDateTime.value()) &&
+            sourceRange == tomlLocalDateTime.sourceRange;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(value(), sourceRange);
+    }
+
+    @Override
+    public String toString() {
+        return "TomlLocalDateTime[" +
+            "value=" + value() +
+            ", sourceRange=" + sourceRange() +
+            ']';
+    }
+
+    /**
+     * A local date-time that stores the fields of the date and the time
+     * packed into two longs.
+     */
+    private static final class Compact extends TomlLocalDateTime {
+        private final long packedDate;
+        private final long packedTime;
+
+        private Compact(long packedDate, long packedTime, SourceRange sourceRange) {
+            super(null, sourceRange);
+            this.packedDate = packedDate;
+            this.packedTime = packedTime;
+        }
+
+        @Override
+        public LocalDateTime value() {
+            return LocalDateTime.of(
+                PackedDateTimes.unpackDate(packedDate),
+                PackedDateTimes.unpackTime(packedTime)
+            );
+        }
+
+        @Override
+        boolean isCompact() {
+            return true;
+        }
+    }
+
+    /**
+     * A local date-time that calls its decoder the first time the value is
+     * needed.
+     */
+    private static final class Lazy extends TomlLocalDateTime {
+        private LocalDateTime decoded;
+        private volatile Supplier<LocalDateTime> decoder;
+
+        private Lazy(Supplier<LocalDateTime> decoder, SourceRange sourceRange) {
+            super(null, sourceRange);
+            this.decoder = decoder;
+        }
+
+        @Override
+        public LocalDateTime value() {
+            if (decoder != null) {
+                decode();
+            }
+            return decoded;
+        }
+
+        private synchronized void decode() {
+            var decoder = this.decoder;
+            if (decoder != null) {
+                decoded = decoder.get();
+                // Clearing the volatile decoder publishes the value.
+                this.decoder = null;
+            }
+        }
+
+        @Override
+        boolean isDecoded() {
+            return decoder == null;
+        }
+    }
 }
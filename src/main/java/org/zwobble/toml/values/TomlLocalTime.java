@@ -1,17 +1,190 @@
 package org.zwobble.toml.values;
 
+import org.zwobble.toml.sources.LineIndex;
 import org.zwobble.toml.sources.SourceRange;
 
 import java.time.LocalTime;
+import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * A TOML local time.
- * @param value The local time represented by the TOML value.
- * @param sourceRange The portion of the TOML document that this value was
- *                    parsed from.
+ * <p>
+ * The value may be decoded lazily, in which case it is decoded the first
+ * time it is needed, or stored compactly, in which case a new
+ * {@link LocalTime} is created each time it is needed. Lazy and compact
+ * values are private subclasses, so values created with the constructor only
+ * store the value and its source range, in final fields.
  */
-public record TomlLocalTime(
-    LocalTime value,
-    SourceRange sourceRange
-) implements TomlValue {
+public sealed class TomlLocalTime implements TomlValue {
+    /**
+     * Create a TOML local time whose value is decoded the first time it is
+     * needed. The decoder is called at most once, unless it throws.
+     *
+     * @param decoder Decodes the local time represented by the TOML value.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     */
+    public static TomlLocalTime lazy(Supplier<LocalTime> decoder, SourceRange sourceRange) {
+        return new Lazy(Objects.requireNonNull(decoder), sourceRange);
+    }
+
+    /**
+     * Create a TOML local time that stores the nanosecond of the day, rather
+     * than the {@link LocalTime} itself, which uses less memory when many
+     * values are retained. A new {@link LocalTime} is created each time the
+     * value is needed.
+     *
+     * @param value The local time represented by the TOML value.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     */
+    public static TomlLocalTime compact(LocalTime value, SourceRange sourceRange) {
+        return new Compact(PackedDateTimes.packTime(value), sourceRange);
+    }
+
+    /**
+     * Create a TOML local time that stores the nanosecond of the day, as with
+     * {@link #compact(LocalTime, SourceRange)}, without creating a
+     * {@link LocalTime}.
+     *
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     * @throws java.time.DateTimeException if the fields are out of range.
+     */
+    public static TomlLocalTime compact(
+        int hour,
+        int minute,
+        int second,
+        int nanoOfSecond,
+        SourceRange sourceRange
+    ) {
+        return new Compact(PackedDateTimes.packTime(hour, minute, second, nanoOfSecond), sourceRange);
+    }
+
+    private final LocalTime value;
+    /**
+     * The source range packed by {@link PackedSourceRanges}, which is only
+     * created as a {@link SourceRange} when requested.
+     */
+    private final long sourceRange;
+    private final LineIndex lineIndex;
+
+    /**
+     * @param value The local time represented by the TOML value.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     */
+    public TomlLocalTime(LocalTime value, SourceRange sourceRange) {
+        this.value = value;
+        this.sourceRange = PackedSourceRanges.pack(sourceRange);
+        this.lineIndex = PackedSourceRanges.lineIndex(sourceRange);
+    }
+
+    /**
+     * The local time represented by the TOML value.
+     */
+    public LocalTime value() {
+        return value;
+    }
+
+    /**
+     * Whether the fields of the value are stored, rather than the value.
+     */
+    boolean isCompact() {
+        return false;
+    }
+
+    /**
+     * Whether the value has been decoded, or was never lazy.
+     */
+    boolean isDecoded() {
+        return true;
+    }
+
+    /**
+     * The portion of the TOML document that this value was parsed from.
+     */
+    public SourceRange sourceRange() {
+        return PackedSourceRanges.unpack(sourceRange, lineIndex);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TomlLocalTime tomlLocalTime)) return false;
+        return Objects.equals(value(), tomlLocalTime.value()) &&
+            sourceRange == tomlLocalTime.sourceRange;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(value(), sourceRange);
+    }
+
+    @Override
+    public String toString() {
+        return "TomlLocalTime[" +
+            "value=" + value() +
+            ", sourceRange=" + sourceRange() +
+            ']';
+    }
+
+    /**
+     * A local time that stores the nanosecond of the day.
+     */
+    private static final class Compact extends TomlLocalTime {
+        private final long packedTime;
+
+        private Compact(long packedTime, SourceRange sourceRange) {
+            super(null, sourceRange);
+            this.packedTime = packedTime;
+        }
+
+        @Override
+        public LocalTime value() {
+            return PackedDateTimes.unpackTime(packedTime);
+        }
+
+        @Override
+        boolean isCompact() {
+            return true;
+        }
+    }
+
+    /**
+     * A local time that calls its decoder the first time the value is
+     * needed.
+     */
+    private static final class Lazy extends TomlLocalTime {
+        private LocalTime decoded;
+        private volatile Supplier<LocalTime> decoder;
+
+        private Lazy(Supplier<LocalTime> decoder, SourceRange sourceRange) {
+            super(null, sourceRange);
+            this.decoder = decoder;
+        }
+
+        @Override
+        public LocalTime value() {
+            if (decoder != null) {
+                decode();
+            }
+            return decoded;
+        }
+
+        private synchronized void decode() {
+            var decoder = this.decoder;
+            if (decoder != null) {
+                decoded = decoder.get();
+                // Clearing the volatile decoder publishes the value.
+                this.decoder = null;
+            }
+        }
+
+        @Override
+        boolean isDecoded() {
+            return decoder == null;
+        }
+    }
 }
@@ -1,17 +1,213 @@
 package org.zwobble.toml.values;
 
+import org.zwobble.toml.sources.LineIndex;
 import org.zwobble.toml.sources.SourceRange;
 
 import java.time.OffsetDateTime;
+import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * A TOML offset date-time.
- * @param value The offset date-time represented by the TOML value.
- * @param sourceRange The portion of the TOML document that this value was
- *                    parsed from.
+ * <p>
+ * The value may be decoded lazily, in which case it is decoded the first
+ * time it is needed, or stored compactly, in which case a new
+ * {@link OffsetDateTime} is created each time it is needed. Lazy and compact
+ * values are private subclasses, so values created with the constructor only
+ * store the value and its source range, in final fields.
  */
-public record TomlOffsetDateTime(
-    OffsetDateTime value,
-    SourceRange sourceRange
-) implements TomlValue {
+public sealed class TomlOffsetDateTime implements TomlValue {
+    /**
+     * Create a TOML offset date-time whose value is decoded the first time it is
+     * needed. The decoder is called at most once, unless it throws.
+     *
+     * @param decoder Decodes the offset date-time represented by the TOML value.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     */
+    public static TomlOffsetDateTime lazy(Supplier<OffsetDateTime> decoder, SourceRange sourceRange) {
+        return new Lazy(Objects.requireNonNull(decoder), sourceRange);
+    }
+
+    /**
+     * Create a TOML offset date-time that stores the fields of the date, time
+     * and offset, rather than the {@link OffsetDateTime} itself, which uses
+     * less memory when many values are retained. A new {@link OffsetDateTime}
+     * is created each time the value is needed.
+     *
+     * @param value The offset date-time represented by the TOML value.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     */
+    public static TomlOffsetDateTime compact(OffsetDateTime value, SourceRange sourceRange) {
+        return new Compact(
+            PackedDateTimes.packDateAndOffset(value.toLocalDate(), value.getOffset()),
+            PackedDateTimes.packTime(value.toLocalTime()),
+            sourceRange
+        );
+    }
+
+    /**
+     * Create a TOML offset date-time that stores the fields of the date, time
+     * and offset, as with {@link #compact(OffsetDateTime, SourceRange)},
+     * without creating an {@link OffsetDateTime}.
+     *
+     * @param offsetTotalSeconds The offset from UTC in seconds.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     * @throws java.time.DateTimeException if the fields are out of range.
+     */
+    public static TomlOffsetDateTime compact(
+        int year,
+        int month,
+        int dayOfMonth,
+        int hour,
+        int minute,
+        int second,
+        int nanoOfSecond,
+        int offsetTotalSeconds,
+        SourceRange sourceRange
+    ) {
+        return new Compact(
+            PackedDateTimes.packDateAndOffset(
+                PackedDateTimes.packDate(year, month, dayOfMonth),
+                offsetTotalSeconds
+            ),
+            PackedDateTimes.packTime(hour, minute, second, nanoOfSecond),
+            sourceRange
+        );
+    }
+
+    private final OffsetDateTime value;
+    /**
+     * The source range packed by {@link PackedSourceRanges}, which is only
+     * created as a {@link SourceRange} when requested.
+     */
+    private final long sourceRange;
+    private final LineIndex lineIndex;
+
+    /**
+     * @param value The offset date-time represented by the TOML value.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     */
+    public TomlOffsetDateTime(OffsetDateTime value, SourceRange sourceRange) {
+        this.value = value;
+        this.sourceRange = PackedSourceRanges.pack(sourceRange);
+        this.lineIndex = PackedSourceRanges.lineIndex(sourceRange);
+    }
+
+    /**
+     * The offset date-time represented by the TOML value.
+     */
+    public OffsetDateTime value() {
+        return value;
+    }
+
+    /**
+     * Whether the fields of the value are stored, rather than the value.
+     */
+    boolean isCompact() {
+        return false;
+    }
+
+    /**
+     * Whether the value has been decoded, or was never lazy.
+     */
+    boolean isDecoded() {
+        return true;
+    }
+
+    /**
+     * The portion of the TOML document that this value was parsed from.
+     */
+    public SourceRange sourceRange() {
+        return PackedSourceRanges.unpack(sourceRange, lineIndex);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TomlOffsetDateTime tomlOffsetDateTime)) return false;
+        return Objects.equals(value(), tomlOffsetDateTime.value()) &&
+            sourceRange == tomlOffsetDateTime.sourceRange;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(value(), sourceRange);
+    }
+
+    @Override
+    public String toString() {
+        return "TomlOffsetDateTime[" +
+            "value=" + value() +
+            ", sourceRange=" + sourceRange() +
+            ']';
+    }
+
+    /**
+     * An offset date-time that stores the fields of the date and offset,
+     * and of the time, packed into two longs.
+     */
+    private static final class Compact extends TomlOffsetDateTime {
+        private final long packedDateAndOffset;
+        private final long packedTime;
+
+        private Compact(long packedDateAndOffset, long packedTime, SourceRange sourceRange) {
+            super(null, sourceRange);
+            this.packedDateAndOffset = packedDateAndOffset;
+            this.packedTime = packedTime;
+        }
+
+        @Override
+        public OffsetDateTime value() {
+            return OffsetDateTime.of(
+                PackedDateTimes.unpackDateFromDateAndOffset(packedDateAndOffset),
+                PackedDateTimes.unpackTime(packedTime),
+                PackedDateTimes.unpackOffsetFromDateAndOffset(packedDateAndOffset)
+            );
+        }
+
+        @Override
+        boolean isCompact() {
+            return true;
+        }
+    }
+
+    /**
+     * An offset date-time that calls its decoder the first time the value is
+     * needed.
+     */
+    private static final class Lazy extends TomlOffsetDateTime {
+        private OffsetDateTime decoded;
+        private volatile Supplier<OffsetDateTime> decoder;
+
+        private Lazy(Supplier<OffsetDateTime> decoder, SourceRange sourceRange) {
+            super(null, sourceRange);
+            this.decoder = decoder;
+        }
+
+        @Override
+        public OffsetDateTime value() {
+            if (decoder != null) {
+                decode();
+            }
+            return decoded;
+        }
+
+        private synchronized void decode() {
+            var decoder = this.decoder;
+            if (decoder != null) {
+                decoded = decoder.get();
+                // Clearing the volatile decoder publishes the value.
+                this.decoder = null;
+            }
+        }
+
+        @Override
+        boolean isDecoded() {
+            return decoder == null;
+        }
+    }
 }
@@ -1,12 +1,95 @@
 package org.zwobble.toml.values;
 
+import org.zwobble.toml.sources.LineIndex;
 import org.zwobble.toml.sources.SourceRange;
 
+import java.util.Objects;
+
 /**
  * A TOML string.
- * @param value The string represented by the TOML value.
- * @param sourceRange The portion of the TOML document that this value was
- *                    parsed from.
+ * <p>
+ * The value may be backed by a slice of the source document, in which case
+ * it is only converted to a {@link String} the first time it is needed.
  */
-public record TomlString(String value, SourceRange sourceRange) implements TomlValue {
+public final class TomlString implements TomlValue {
+    /**
+     * Create a TOML string whose value is converted from the given characters
+     * the first time it is needed.
+     * <p>
+     * The characters must not be modified after this method is called.
+     *
+     * @param value The string represented by the TOML value.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     */
+    public static TomlString lazy(CharSequence value, SourceRange sourceRange) {
+        return new TomlString(Objects.requireNonNull(value), null, sourceRange);
+    }
+
+    private final CharSequence source;
+    private String value;
+    /**
+     * The source range packed by {@link PackedSourceRanges}, which is only
+     * created as a {@link SourceRange} when requested.
+     */
+    private final long sourceRange;
+    private final LineIndex lineIndex;
+
+    /**
+     * @param value The string represented by the TOML value.
+     * @param sourceRange The portion of the TOML document that this value was
+     *                    parsed from.
+     */
+    public TomlString(String value, SourceRange sourceRange) {
+        this(null, value, sourceRange);
+    }
+
+    private TomlString(CharSequence source, String value, SourceRange sourceRange) {
+        this.source = source;
+        this.value = value;
+        this.sourceRange = PackedSourceRanges.pack(sourceRange);
+        this.lineIndex = PackedSourceRanges.lineIndex(sourceRange);
+    }
+
+    /**
+     * The string represented by the TOML value.
+     */
+    public String value() {
+        // Strings are immutable, so racing to convert the source is harmless.
+        var value = this.value;
+        if (value == null) {
+            value = source.toString();
+            this.value = value;
+        }
+        return value;
+    }
+
+    /**
+     * The portion of the TOML document that this value was parsed from.
+     */
+    public SourceRange sourceRange() {
+        return PackedSourceRanges.unpack(sourceRange, lineIndex);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TomlString tomlString = (TomlString) o;
+        return Objects.equals(value(), tomlString.value()) &&
+            sourceRange == tomlString.sourceRange;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(value(), sourceRange);
+    }
+
+    @Override
+    public String toString() {
+        return "TomlString[" +
+            "value=" + value() +
+            ", sourceRange=" + sourceRange() +
+            ']';
+    }
 }
@@ -2,24 +2,86 @@ package org.zwobble.toml.values;
 
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 
 /**
  * A TOML table, that is, a mapping from string keys to TOML values.
+ * <p>
+ * Tables are immutable. The keys are stored in a {@link TomlTableShape},
+ * which may be shared with other tables that have the same keys in the same
+ * order, and the values are stored in an array in the same order as the
+ * keys.
  */
 public final class TomlTable implements TomlValue, Iterable<TomlKeyValuePair> {
     public static TomlTable of(LinkedHashMap<String, TomlKeyValuePair> pairs) {
         return new TomlTable(pairs);
     }
 
-    private final LinkedHashMap<String, TomlKeyValuePair> pairs;
+    /**
+     * Create a table from parallel arrays of keys and values.
+     * <p>
+     * The arrays must not be modified after this method is called.
+     *
+     * @param keys The keys of the table in order. Each key must be distinct.
+     * @param values The value of each key.
+     * @throws IllegalArgumentException if the arrays are of different lengths,
+     * or a key appears more than once.
+     */
+    public static TomlTable of(String[] keys, TomlValue[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("keys and values must be the same length");
+        }
+        return new TomlTable(TomlTableShape.ofArray(keys), values);
+    }
 
+    private final TomlTableShape shape;
+    private final TomlValue[] values;
+
+    /**
+     * Create a table with the pairs of the given map, in the order of the map.
+     * The map is copied, so later changes to it don't affect the table.
+     */
     public TomlTable(LinkedHashMap<String, TomlKeyValuePair> pairs) {
-        this.pairs = pairs;
+        this(
+            TomlTableShape.ofArray(pairs.keySet().toArray(String[]::new)),
+            pairs.values().stream().map(TomlKeyValuePair::value).toArray(TomlValue[]::new)
+        );
+    }
+
+    private TomlTable(TomlTableShape shape, TomlValue[] values) {
+        this.shape = shape;
+        this.values = values;
+    }
+
+    /**
+     * Create a table with the same keys as this table, in the same order, but
+     * different values. The keys are shared between the two tables, rather
+     * than copied.
+     * <p>
+     * The array of values must not be modified after this method is called.
+     *
+     * @param values The value of each key, in the same order as the keys of
+     *               this table.
+     * @throws IllegalArgumentException if the number of values is different
+     * from the number of keys.
+     */
+    public TomlTable withValues(TomlValue[] values) {
+        if (shape.size() != values.length) {
+            throw new IllegalArgumentException("values must be the same size as the table");
+        }
+        return new TomlTable(shape, values);
+    }
+
+    /**
+     * The keys of the table.
+     */
+    TomlTableShape shape() {
+        return shape;
     }
 
     public Iterable<TomlKeyValuePair> keyValuePairs() {
-        return this.pairs.values();
+        return this;
     }
 
     /**
@@ -28,17 +90,30 @@ public final class TomlTable implements TomlValue, Iterable<TomlKeyValuePair> {
      * @return The value associated with the key if there is one, otherwise null.
      */
     public TomlValue get(String key) {
-        var pair = this.pairs.get(key);
-        if (pair == null) {
-            return null;
-        } else {
-            return pair.value();
-        }
+        var position = shape.position(key);
+        return position < 0 ? null : values[position];
     }
 
     @Override
     public Iterator<TomlKeyValuePair> iterator() {
-        return this.keyValuePairs().iterator();
+        return new Iterator<>() {
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < values.length;
+            }
+
+            @Override
+            public TomlKeyValuePair next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                var pair = TomlKeyValuePair.of(shape.key(position), values[position]);
+                position += 1;
+                return pair;
+            }
+        };
     }
 
     @Override
@@ -46,18 +121,43 @@ public final class TomlTable implements TomlValue, Iterable<TomlKeyValuePair> {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         TomlTable that = (TomlTable) o;
-        return Objects.equals(pairs, that.pairs);
+        if (values.length != that.values.length) {
+            return false;
+        }
+        // As with maps, the order of the keys doesn't matter, unless the
+        // tables share a shape, in which case the values line up.
+        for (var position = 0; position < values.length; position++) {
+            var otherPosition = shape == that.shape
+                ? position
+                : that.shape.position(shape.key(position));
+            if (otherPosition < 0 || !Objects.equals(values[position], that.values[otherPosition])) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(pairs);
+        var hashCode = 0;
+        for (var position = 0; position < values.length; position++) {
+            hashCode += shape.key(position).hashCode() ^ Objects.hashCode(values[position]);
+        }
+        return hashCode;
     }
 
     @Override
     public String toString() {
-        return "TomlTable(" +
-            "pairs=" + pairs +
-            ')';
+        var string = new StringBuilder("TomlTable(pairs={");
+        for (var position = 0; position < values.length; position++) {
+            if (position > 0) {
+                string.append(", ");
+            }
+            var key = shape.key(position);
+            string.append(key)
+                .append('=')
+                .append(TomlKeyValuePair.of(key, values[position]));
+        }
+        return string.append("})").toString();
     }
 }
@@ -0,0 +1,160 @@
+package org.zwobble.toml.values;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The keys of a table in order, and an index from each key to its position.
+ * <p>
+ * Shapes are immutable, so tables with the same keys in the same order, such
+ * as the entries of an array of tables, can share one shape, and only store
+ * their own values.
+ * <p>
+ * Large shapes have an open-addressing index from the hash of each key to its
+ * position. Small shapes, which are the majority in most documents, instead
+ * store the hash of each key, which are searched linearly.
+ */
+final class TomlTableShape {
+    /**
+     * The largest number of keys in a shape that is searched linearly.
+     */
+    private static final int MAX_SMALL_SHAPE_SIZE = 8;
+
+    /**
+     * Create a shape that uses the given array of keys without copying it.
+     */
+    static TomlTableShape ofArray(String[] keys) {
+        return new TomlTableShape(keys);
+    }
+
+    private final String[] keys;
+
+    /**
+     * For large shapes, the position of each key plus one, at the slot given
+     * by the hash of the key, or zero for an empty slot. For small shapes,
+     * the hash of each key, in the same order as the keys.
+     */
+    private final int[] index;
+
+    private TomlTableShape(String[] keys) {
+        this.keys = keys;
+        this.index = buildIndex(keys);
+    }
+
+    private static int[] buildIndex(String[] keys) {
+        if (isSmall(keys)) {
+            return buildSmallShapeHashes(keys);
+        }
+
+        var capacity = Integer.highestOneBit(keys.length * 2 - 1) * 2;
+        var index = new int[capacity];
+        var mask = capacity - 1;
+        for (var position = 0; position < keys.length; position++) {
+            var key = Objects.requireNonNull(keys[position]);
+            var slot = hash(key) & mask;
+            while (index[slot] != 0) {
+                if (keys[index[slot] - 1].equals(key)) {
+                    throw new IllegalArgumentException("duplicate key: " + key);
+                }
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = position + 1;
+        }
+        return index;
+    }
+
+    private static int[] buildSmallShapeHashes(String[] keys) {
+        var hashes = new int[keys.length];
+        for (var position = 0; position < keys.length; position++) {
+            var key = Objects.requireNonNull(keys[position]);
+            hashes[position] = key.hashCode();
+            for (var otherPosition = 0; otherPosition < position; otherPosition++) {
+                if (hashes[otherPosition] == hashes[position] && keys[otherPosition].equals(key)) {
+                    throw new IllegalArgumentException("duplicate key: " + key);
+                }
+            }
+        }
+        return hashes;
+    }
+
+    private static boolean isSmall(String[] keys) {
+        return keys.length <= MAX_SMALL_SHAPE_SIZE;
+    }
+
+    private static int hash(String key) {
+        var hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * The number of keys in the shape.
+     */
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * Get the key at a position.
+     *
+     * @throws IndexOutOfBoundsException if the position is negative, or not
+     * less than the size of the shape.
+     */
+    String key(int position) {
+        return keys[position];
+    }
+
+    /**
+     * Get the position of a key.
+     *
+     * @param key The key to find.
+     * @return The position of the key if it's in the shape, otherwise -1.
+     */
+    int position(String key) {
+        if (isSmall(keys)) {
+            return smallShapePosition(key);
+        }
+
+        var mask = index.length - 1;
+        for (var slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            var entry = index[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            var candidate = keys[entry - 1];
+            if (candidate == key || candidate.equals(key)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private int smallShapePosition(String key) {
+        var hash = key.hashCode();
+        for (var position = 0; position < index.length; position++) {
+            if (index[position] == hash) {
+                var candidate = keys[position];
+                if (candidate == key || candidate.equals(key)) {
+                    return position;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TomlTableShape that = (TomlTableShape) o;
+        return Arrays.equals(keys, that.keys);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(keys);
+    }
+
+    @Override
+    public String toString() {
+        return "TomlTableShape(keys=" + Arrays.toString(keys) + ")";
+    }
+}
@@ -0,0 +1,155 @@
+package org.zwobble.toml.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Generates the TOML documents used by the benchmarks.
+ * <p>
+ * Documents are generated deterministically so that results are comparable
+ * between runs.
+ */
+public class BenchmarkDocuments {
+    private BenchmarkDocuments() {
+    }
+
+    public static String get(String name) {
+        return switch (name) {
+            case "config" -> config();
+            case "arrayOfTables" -> arrayOfTables();
+            case "numbers" -> numbers();
+            case "dateTimes" -> dateTimes();
+            case "nestedTables" -> nestedTables();
+            default -> throw new IllegalArgumentException("Unknown document: " + name);
+        };
+    }
+
+    /**
+     * A mix of tables, comments, strings and scalars, similar to a typical
+     * hand-written configuration file.
+     */
+    public static String config() {
+        var random = new Random(42);
+        var document = new StringBuilder();
+        document.append("# Generated configuration\n");
+        document.append("title = \"Configuration résumé\"\n\n");
+
+        for (var sectionIndex = 0; sectionIndex < 200; sectionIndex++) {
+            document.append("# Section ").append(sectionIndex).append(" — settings for the service\n");
+            document.append("[services.service-").append(sectionIndex).append("]\n");
+            document.append("name = \"service-").append(sectionIndex).append("\"\n");
+            document.append("description = 'A service with a literal description 日本'\n");
+            document.append("enabled = ").append(random.nextBoolean()).append("\n");
+            document.append("port = ").append(1024 + random.nextInt(60000)).append("\n");
+            document.append("timeout = ").append(random.nextDouble() * 100).append("\n");
+            document.append("started = 2024-0").append(1 + random.nextInt(9)).append("-1").append(random.nextInt(10)).append("T12:34:56Z\n");
+            document.append("tags = [\"alpha\", \"beta\", \"gamma\"]\n");
+            document.append("limits = { cpu = ").append(random.nextInt(16)).append(", memory = \"").append(random.nextInt(64)).append("Gi\" }\n");
+            document.append("notes = \"\"\"\nMulti-line notes\\twith escapes\nand a second line.\"\"\"\n\n");
+        }
+
+        return document.toString();
+    }
+
+    /**
+     * A long array of tables where every entry has the same keys.
+     */
+    public static String arrayOfTables() {
+        var random = new Random(42);
+        var document = new StringBuilder();
+
+        for (var entryIndex = 0; entryIndex < 5000; entryIndex++) {
+            document.append("[[servers]]\n");
+            document.append("host = \"host-").append(entryIndex).append(".example.com\"\n");
+            document.append("port = ").append(8000 + random.nextInt(1000)).append("\n");
+            document.append("weight = ").append(random.nextDouble()).append("\n");
+            document.append("enabled = ").append(random.nextBoolean()).append("\n\n");
+        }
+
+        return document.toString();
+    }
+
+    /**
+     * Large arrays of integers and floats.
+     */
+    public static String numbers() {
+        var random = new Random(42);
+        var document = new StringBuilder();
+
+        document.append("integers = [");
+        for (var index = 0; index < 20000; index++) {
+            if (index > 0) {
+                document.append(", ");
+            }
+            document.append(random.nextInt());
+        }
+        document.append("]\n");
+
+        document.append("floats = [");
+        for (var index = 0; index < 20000; index++) {
+            if (index > 0) {
+                document.append(", ");
+            }
+            document.append(random.nextDouble() * 1000);
+        }
+        document.append("]\n");
+
+        return document.toString();
+    }
+
+    /**
+     * A schedule of events, each with several dates and times.
+     */
+    public static String dateTimes() {
+        var random = new Random(42);
+        var document = new StringBuilder();
+
+        for (var eventIndex = 0; eventIndex < 5000; eventIndex++) {
+            var month = String.format("%02d", 1 + random.nextInt(12));
+            var day = String.format("%02d", 1 + random.nextInt(28));
+            var hour = String.format("%02d", random.nextInt(24));
+            var minute = String.format("%02d", random.nextInt(60));
+
+            document.append("[[events]]\n");
+            document.append("date = 2024-").append(month).append("-").append(day).append("\n");
+            document.append("starts = 2024-").append(month).append("-").append(day)
+                .append("T").append(hour).append(":").append(minute).append(":00Z\n");
+            document.append("ends = 2024-").append(month).append("-").append(day)
+                .append("T").append(hour).append(":").append(minute).append(":30.250+02:00\n");
+            document.append("local = 2024-").append(month).append("-").append(day)
+                .append(" ").append(hour).append(":").append(minute).append(":00\n");
+            document.append("reminder = ").append(hour).append(":").append(minute).append(":00\n\n");
+        }
+
+        return document.toString();
+    }
+
+    /**
+     * Many small tables nested several levels deep, with headers that share
+     * parent tables and key-value pairs with deep dotted keys.
+     */
+    public static String nestedTables() {
+        var random = new Random(42);
+        var document = new StringBuilder();
+        var regions = new String[] {"eu-west-1", "eu-central-1", "us-east-1", "us-west-2", "ap-south-1"};
+
+        for (var clusterIndex = 0; clusterIndex < 1000; clusterIndex++) {
+            var region = regions[random.nextInt(regions.length)];
+            var cluster = "regions." + region + ".clusters.cluster-" + clusterIndex;
+
+            document.append("[").append(cluster).append("]\n");
+            document.append("name = \"cluster-").append(clusterIndex).append("\"\n");
+            document.append("settings.network.ingress.port = ").append(1024 + random.nextInt(60000)).append("\n");
+            document.append("settings.network.ingress.tls.enabled = ").append(random.nextBoolean()).append("\n");
+            document.append("settings.limits.cpu = ").append(1 + random.nextInt(16)).append("\n");
+            document.append("settings.limits.memory.max = \"").append(1 + random.nextInt(64)).append("Gi\"\n\n");
+
+            for (var nodeIndex = 0; nodeIndex < 3; nodeIndex++) {
+                document.append("[").append(cluster).append(".nodes.node-").append(nodeIndex).append("]\n");
+                document.append("zone.id = \"").append(region).append((char) ('a' + nodeIndex)).append("\"\n");
+                document.append("hardware.disk.size = ").append(random.nextInt(1000)).append("\n\n");
+            }
+        }
+
+        return document.toString();
+    }
+}
@@ -0,0 +1,83 @@
+package org.zwobble.toml.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.zwobble.toml.parser.TomlParseOptions;
+import org.zwobble.toml.parser.TomlParser;
+import org.zwobble.toml.values.TomlTable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TomlParserBenchmarks {
+    @Param({"config", "arrayOfTables", "numbers", "dateTimes", "nestedTables"})
+    public String document;
+
+    private String text;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        this.text = BenchmarkDocuments.get(this.document);
+        this.bytes = this.text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public TomlTable parseInputStream() throws IOException {
+        return TomlParser.parseInputStream(new ByteArrayInputStream(this.bytes));
+    }
+
+    /**
+     * Decodes the input using a charset decoder before parsing, which is how
+     * input streams were parsed before the UTF-8 reader was introduced.
+     */
+    @Benchmark
+    public TomlTable parseInputStreamWithCharsetDecoder() throws IOException {
+        var decoder = StandardCharsets.UTF_8
+            .newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        var inputStream = new ByteArrayInputStream(this.bytes);
+        return TomlParser.parseReader(new InputStreamReader(inputStream, decoder));
+    }
+
+    @Benchmark
+    public TomlTable parseString() {
+        return TomlParser.parseString(this.text);
+    }
+
+    /**
+     * Parses floats, dates and times without decoding them, which is the
+     * cost of parsing a document when only some of its values are read.
+     */
+    @Benchmark
+    public TomlTable parseStringWithLazyScalars() {
+        var options = TomlParseOptions.defaults().withLazyScalars(true);
+        return TomlParser.parseString(this.text, options);
+    }
+
+    @Benchmark
+    public TomlTable parseStringReader() throws IOException {
+        return TomlParser.parseReader(new StringReader(this.text));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        var options = new OptionsBuilder()
+            .include(TomlParserBenchmarks.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
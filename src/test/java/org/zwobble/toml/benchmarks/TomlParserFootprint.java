@@ -0,0 +1,77 @@
+package org.zwobble.toml.benchmarks;
+
+import org.zwobble.toml.parser.TomlParseOptions;
+import org.zwobble.toml.parser.TomlParser;
+import org.zwobble.toml.values.TomlArray;
+import org.zwobble.toml.values.TomlTable;
+import org.zwobble.toml.values.TomlValue;
+
+import java.lang.ref.Reference;
+
+/**
+ * Measures the heap retained by a parsed benchmark document.
+ * <p>
+ * The measurement relies on garbage collection settling, so it's most
+ * reliable with a fixed heap size, such as {@code -Xms1g -Xmx1g}.
+ * <p>
+ * Pass {@code no-source-ranges} after the document name to parse the
+ * document without source ranges, and {@code compact-date-times} to store
+ * dates and times compactly.
+ */
+public class TomlParserFootprint {
+    public static void main(String[] args) {
+        var document = args.length > 0 ? args[0] : "numbers";
+        var text = BenchmarkDocuments.get(document);
+        var options = TomlParseOptions.defaults();
+        for (var i = 1; i < args.length; i++) {
+            options = switch (args[i]) {
+                case "no-source-ranges" -> options.withSourceRanges(false);
+                case "compact-date-times" -> options.withCompactDateTimes(true);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            };
+        }
+
+        var usedBefore = usedHeap();
+        var table = TomlParser.parseString(text, options);
+        var usedAfter = usedHeap();
+
+        var retained = usedAfter - usedBefore;
+        var valueCount = countValues(table);
+        System.out.printf(
+            "%s: %d bytes retained for %d values (%.1f bytes per value)%n",
+            document,
+            retained,
+            valueCount,
+            (double) retained / valueCount
+        );
+        Reference.reachabilityFence(table);
+    }
+
+    private static long usedHeap() {
+        var runtime = Runtime.getRuntime();
+        for (var i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static int countValues(TomlValue value) {
+        return switch (value) {
+            case TomlArray array -> {
+                var count = 1;
+                for (var element : array) {
+                    count += countValues(element);
+                }
+                yield count;
+            }
+            case TomlTable table -> {
+                var count = 1;
+                for (var pair : table) {
+                    count += countValues(pair.value());
+                }
+                yield count;
+            }
+            default -> 1;
+        };
+    }
+}
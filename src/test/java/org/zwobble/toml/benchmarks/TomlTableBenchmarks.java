@@ -0,0 +1,83 @@
+package org.zwobble.toml.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.zwobble.toml.parser.TomlParser;
+import org.zwobble.toml.values.TomlArray;
+import org.zwobble.toml.values.TomlTable;
+import org.zwobble.toml.values.TomlValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading parsed documents, rather than parsing them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TomlTableBenchmarks {
+    @Param({"config", "arrayOfTables"})
+    public String document;
+
+    private TomlTable table;
+    private List<TomlTable> tables;
+
+    @Setup
+    public void setUp() {
+        this.table = TomlParser.parseString(BenchmarkDocuments.get(this.document));
+        this.tables = new ArrayList<>();
+        collectTables(this.table, this.tables);
+    }
+
+    /**
+     * Look up every key of every table in the document.
+     */
+    @Benchmark
+    public void get(Blackhole blackhole) {
+        for (var table : this.tables) {
+            for (var pair : table) {
+                blackhole.consume(table.get(pair.key()));
+            }
+        }
+    }
+
+    /**
+     * Iterate over every key-value pair of every table in the document.
+     */
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        for (var table : this.tables) {
+            for (var pair : table) {
+                blackhole.consume(pair.value());
+            }
+        }
+    }
+
+    private static void collectTables(TomlValue value, List<TomlTable> tables) {
+        if (value instanceof TomlTable table) {
+            tables.add(table);
+            for (var pair : table) {
+                collectTables(pair.value(), tables);
+            }
+        } else if (value instanceof TomlArray array) {
+            for (var element : array) {
+                collectTables(element, tables);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        var options = new OptionsBuilder()
+            .include(TomlTableBenchmarks.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,176 @@
+package org.zwobble.toml.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.zwobble.precisely.AssertThat.assertThat;
+import static org.zwobble.precisely.Matchers.equalTo;
+
+public class DateTimeDecoderTests {
+    @Test
+    public void canonicalLayoutsAreDecoded() {
+        assertThat(
+            decodeLocalDate("1979-05-27"),
+            equalTo(LocalDate.of(1979, 5, 27))
+        );
+        assertThat(
+            decodeLocalTime("07:32:00.999999"),
+            equalTo(LocalTime.of(7, 32, 0, 999_999_000))
+        );
+        assertThat(
+            decodeLocalDateTime("1979-05-27t07:32:00"),
+            equalTo(LocalDateTime.of(1979, 5, 27, 7, 32, 0))
+        );
+        assertThat(
+            decodeOffsetDateTime("1979-05-27T00:32:00.5-07:00"),
+            equalTo(OffsetDateTime.parse("1979-05-27T00:32:00.5-07:00"))
+        );
+        assertThat(
+            decodeOffsetDateTime("1979-05-27T07:32:00z"),
+            equalTo(OffsetDateTime.parse("1979-05-27T07:32:00Z"))
+        );
+    }
+
+    @Test
+    public void invalidValuesAndOtherLayoutsAreNotDecoded() {
+        assertThat(decodeLocalDate("1979-02-29"), equalTo(null));
+        assertThat(decodeLocalDate("+1979-05-27"), equalTo(null));
+        assertThat(decodeLocalTime("24:00:00"), equalTo(null));
+        assertThat(decodeLocalTime("07:32"), equalTo(null));
+        assertThat(decodeLocalTime("07:32:00.1234567890"), equalTo(null));
+        assertThat(decodeOffsetDateTime("1979-05-27T07:32:00+18:01"), equalTo(null));
+    }
+
+    @Test
+    public void fieldsAreReadWithoutCheckingRanges() {
+        var decoder = new DateTimeDecoder();
+
+        assertThat(decoder.readLocalDate("1979-02-29"), equalTo(true));
+        assertThat(decoder.isDateInRange(), equalTo(false));
+        assertThat(decoder.readLocalTime("24:00:00"), equalTo(true));
+        assertThat(decoder.isTimeInRange(), equalTo(false));
+        assertThat(decoder.readLocalTime("07:32"), equalTo(false));
+        assertThat(decoder.readOffsetDateTime("1979-05-27T07:32:00+18:01"), equalTo(true));
+        assertThat(decoder.isDateInRange(), equalTo(true));
+        assertThat(decoder.isTimeInRange(), equalTo(true));
+        assertThat(decoder.isOffsetInRange(), equalTo(false));
+        assertThat(decoder.readOffsetDateTime("1979-05-27T07:32:00"), equalTo(false));
+    }
+
+    @Test
+    public void fieldsThatWereReadAreDecoded() {
+        var decoder = new DateTimeDecoder();
+
+        assertThat(decoder.readOffsetDateTime("1979-05-27T00:32:00.25-07:30"), equalTo(true));
+
+        assertThat(decoder.year, equalTo(1979));
+        assertThat(decoder.month, equalTo(5));
+        assertThat(decoder.day, equalTo(27));
+        assertThat(decoder.hour, equalTo(0));
+        assertThat(decoder.minute, equalTo(32));
+        assertThat(decoder.second, equalTo(0));
+        assertThat(decoder.nano, equalTo(250_000_000));
+        assertThat(decoder.offsetTotalSeconds(), equalTo(-(7 * 60 + 30) * 60));
+    }
+
+    @Test
+    public void randomValuesMatchIsoFormatters() {
+        var random = new Random(42);
+
+        for (var iteration = 0; iteration < 100000; iteration++) {
+            var date = randomDate(random);
+            var time = randomTime(random);
+            var offset = randomOffset(random);
+            var separator = random.nextInt(10) == 0 ? "t" : "T";
+
+            assertMatches(date, DateTimeDecoderTests::decodeLocalDate, LocalDate::parse);
+            assertMatches(time, DateTimeDecoderTests::decodeLocalTime, LocalTime::parse);
+            assertMatches(date + separator + time, DateTimeDecoderTests::decodeLocalDateTime, LocalDateTime::parse);
+            assertMatches(date + separator + time + offset, DateTimeDecoderTests::decodeOffsetDateTime, OffsetDateTime::parse);
+        }
+    }
+
+    private static <T> void assertMatches(
+        String text,
+        Function<String, T> decode,
+        Function<String, T> parse
+    ) {
+        T expected;
+        try {
+            expected = parse.apply(text);
+        } catch (DateTimeParseException exception) {
+            expected = null;
+        }
+
+        var decoded = decode.apply(text);
+        if (decoded != null) {
+            assertThat(decoded, equalTo(expected));
+        }
+    }
+
+    private static LocalDate decodeLocalDate(String text) {
+        var decoder = new DateTimeDecoder();
+        return decoder.readLocalDate(text) && decoder.isDateInRange()
+            ? decoder.toLocalDate()
+            : null;
+    }
+
+    private static LocalTime decodeLocalTime(String text) {
+        var decoder = new DateTimeDecoder();
+        return decoder.readLocalTime(text) && decoder.isTimeInRange()
+            ? decoder.toLocalTime()
+            : null;
+    }
+
+    private static LocalDateTime decodeLocalDateTime(String text) {
+        var decoder = new DateTimeDecoder();
+        return decoder.readLocalDateTime(text) && decoder.isDateInRange() && decoder.isTimeInRange()
+            ? decoder.toLocalDateTime()
+            : null;
+    }
+
+    private static OffsetDateTime decodeOffsetDateTime(String text) {
+        var decoder = new DateTimeDecoder();
+        return decoder.readOffsetDateTime(text) &&
+            decoder.isDateInRange() &&
+            decoder.isTimeInRange() &&
+            decoder.isOffsetInRange()
+            ? decoder.toOffsetDateTime()
+            : null;
+    }
+
+    private static String randomDate(Random random) {
+        return digits(random, 4, 10000) + "-" + digits(random, 2, 14) + "-" + digits(random, 2, 33);
+    }
+
+    private static String randomTime(Random random) {
+        var time = digits(random, 2, 26) + ":" + digits(random, 2, 62) + ":" + digits(random, 2, 62);
+        if (random.nextBoolean()) {
+            var fractionDigitCount = random.nextInt(11);
+            time += "." + (fractionDigitCount == 0 ? "" : digits(random, fractionDigitCount, Integer.MAX_VALUE));
+        }
+        return time;
+    }
+
+    private static String randomOffset(Random random) {
+        return switch (random.nextInt(3)) {
+            case 0 -> random.nextBoolean() ? "Z" : "z";
+            default -> (random.nextBoolean() ? "+" : "-") + digits(random, 2, 20) + ":" + digits(random, 2, 62);
+        };
+    }
+
+    private static String digits(Random random, int count, int bound) {
+        var value = Integer.toString(random.nextInt(bound));
+        if (value.length() > count) {
+            value = value.substring(value.length() - count);
+        }
+        return "0".repeat(count - value.length()) + value;
+    }
+}
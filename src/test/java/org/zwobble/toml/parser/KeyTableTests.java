@@ -0,0 +1,50 @@
+package org.zwobble.toml.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.zwobble.precisely.AssertThat.assertThat;
+import static org.zwobble.precisely.Matchers.equalTo;
+
+public class KeyTableTests {
+    @Test
+    public void keysWithTheSameCharactersAreTheSameString() {
+        var keyTable = new KeyTable(null);
+
+        var first = keyTable.get("[host]", 1, 5);
+        var second = keyTable.get(new StringBuilder("host"), 0, 4);
+        var third = keyTable.getAscii("a.host".getBytes(StandardCharsets.US_ASCII), 2, 6);
+
+        assertThat(first, equalTo("host"));
+        assertThat(second == first, equalTo(true));
+        assertThat(third == first, equalTo(true));
+    }
+
+    @Test
+    public void keysWithDifferentCharactersAreDifferentStrings() {
+        var keyTable = new KeyTable(null);
+
+        // "Aa" and "BB" have the same hash code.
+        var first = keyTable.get("Aa", 0, 2);
+        var second = keyTable.get("BB", 0, 2);
+        var third = keyTable.get("A", 0, 1);
+
+        assertThat(first, equalTo("Aa"));
+        assertThat(second, equalTo("BB"));
+        assertThat(third, equalTo("A"));
+    }
+
+    @Test
+    public void manyKeysCanBeAdded() {
+        var keyTable = new KeyTable(null);
+
+        for (var index = 0; index < 10000; index++) {
+            var key = "key" + index;
+            assertThat(keyTable.get(key, 0, key.length()), equalTo(key));
+        }
+
+        assertThat(keyTable.get("key1", 0, 4) == keyTable.get("key1", 0, 4), equalTo(true));
+        assertThat(keyTable.get("key9999", 0, 7), equalTo("key9999"));
+    }
+}
@@ -0,0 +1,61 @@
+package org.zwobble.toml.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.zwobble.precisely.AssertThat.assertThat;
+import static org.zwobble.precisely.Matchers.equalTo;
+
+public class TextScannerTests {
+    @Test
+    public void scanningStopsAtControlCharactersExclusionsAndNonAsciiBytes() {
+        var bytes = "ab\tc\"d\\e\u007ff\u00e9g\nh".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        var scanner = TextScanner.DEFAULT;
+
+        assertThat(scanner.skipText(bytes, 0, bytes.length, (byte) '"', (byte) '\\'), equalTo(4));
+        assertThat(scanner.skipText(bytes, 5, bytes.length, (byte) '"', (byte) '\\'), equalTo(6));
+        assertThat(scanner.skipText(bytes, 7, bytes.length, (byte) '"', (byte) '\\'), equalTo(8));
+        assertThat(scanner.skipText(bytes, 9, bytes.length, (byte) '"', (byte) '\\'), equalTo(10));
+        assertThat(scanner.skipText(bytes, 12, bytes.length, (byte) '"', (byte) '\\'), equalTo(13));
+        assertThat(scanner.skipText(bytes, 14, bytes.length, (byte) '"', (byte) '\\'), equalTo(15));
+    }
+
+    @Test
+    public void whenScannerIsVectorizedThenResultsMatchScalarScanner() {
+        var random = new Random(42);
+        var alphabet = "abc \t\"'\\#\n\r\u0000\u007f".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+
+        for (var iteration = 0; iteration < 10000; iteration++) {
+            var bytes = new byte[random.nextInt(200)];
+            for (var index = 0; index < bytes.length; index++) {
+                // Mostly text, so that long runs are scanned.
+                bytes[index] = random.nextInt(20) == 0
+                    ? (random.nextBoolean() ? alphabet[random.nextInt(alphabet.length)] : (byte) random.nextInt(256))
+                    : (byte) ('a' + random.nextInt(26));
+            }
+            var from = bytes.length == 0 ? 0 : random.nextInt(bytes.length);
+            var to = from + random.nextInt(bytes.length - from + 1);
+
+            for (var exclusions : new String[] {"", "'", "\"\\"}) {
+                var firstExclusion = exclusions.isEmpty() ? 0 : (byte) exclusions.charAt(0);
+                var secondExclusion = exclusions.length() < 2 ? 0 : (byte) exclusions.charAt(1);
+
+                assertThat(
+                    TextScanner.DEFAULT.skipText(bytes, from, to, (byte) firstExclusion, (byte) secondExclusion),
+                    equalTo(TextScanner.SCALAR.skipText(bytes, from, to, (byte) firstExclusion, (byte) secondExclusion))
+                );
+            }
+        }
+    }
+
+    @Test
+    public void whenVectorModuleIsPresentThenVectorScannerIsUsed() {
+        var isVectorModulePresent = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+        assertThat(
+            TextScanner.DEFAULT.getClass().getSimpleName(),
+            equalTo(isVectorModulePresent ? "VectorTextScanner" : "TextScanner")
+        );
+    }
+}
@@ -0,0 +1,114 @@
+package org.zwobble.toml.parser;
+
+import org.junit.jupiter.api.Test;
+import org.zwobble.toml.errors.TomlParseError;
+import org.zwobble.toml.values.TomlInt;
+import org.zwobble.toml.values.TomlString;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.zwobble.precisely.AssertThat.assertThat;
+import static org.zwobble.precisely.Matchers.*;
+
+public class TomlFlowSubscriberTests {
+    @Test
+    public void documentIsParsedFromPublishedChunks() throws Exception {
+        var subscriber = new TomlFlowSubscriber();
+
+        try (var publisher = new SubmissionPublisher<ByteBuffer>()) {
+            publisher.subscribe(subscriber);
+            publisher.submit(utf8("x = \"ab"));
+            publisher.submit(utf8("c\"\ny = 4"));
+            publisher.submit(utf8("2\n"));
+        }
+        var result = subscriber.result().get(10, TimeUnit.SECONDS);
+
+        assertThat(result.get("x"), instanceOf(
+            TomlString.class,
+            has("value", x -> x.value(), equalTo("abc"))
+        ));
+        assertThat(result.get("y"), instanceOf(
+            TomlInt.class,
+            has("value", x -> x.value(), equalTo(42L))
+        ));
+    }
+
+    @Test
+    public void documentIsParsedWithOptions() throws Exception {
+        var subscriber = new TomlFlowSubscriber(TomlParseOptions.defaults().withSourceRanges(false));
+
+        try (var publisher = new SubmissionPublisher<ByteBuffer>()) {
+            publisher.subscribe(subscriber);
+            publisher.submit(utf8("x = \"abc\"\n"));
+        }
+        var result = subscriber.result().get(10, TimeUnit.SECONDS);
+
+        assertThat(result.get("x"), instanceOf(
+            TomlString.class,
+            has("sourceRange", x -> x.sourceRange(), equalTo(null))
+        ));
+    }
+
+    @Test
+    public void whenDocumentIsInvalidThenResultCompletesExceptionallyAndSubscriptionIsCancelled() {
+        var subscriber = new TomlFlowSubscriber();
+        var subscription = new RecordingSubscription();
+        subscriber.onSubscribe(subscription);
+
+        subscriber.onNext(utf8("x = \n"));
+
+        var error = assertThrows(ExecutionException.class, () -> subscriber.result().get());
+        assertThat(error.getCause(), instanceOf(TomlParseError.class));
+        assertThat(subscription.isCancelled, equalTo(true));
+    }
+
+    @Test
+    public void nextChunkIsRequestedOnlyAfterPreviousChunkIsParsed() {
+        var subscriber = new TomlFlowSubscriber();
+        var subscription = new RecordingSubscription();
+
+        subscriber.onSubscribe(subscription);
+        assertThat(subscription.requests, equalTo(List.of(1L)));
+
+        subscriber.onNext(utf8("x = 1\n"));
+        assertThat(subscription.requests, equalTo(List.of(1L, 1L)));
+    }
+
+    @Test
+    public void whenResultIsCancelledThenSubscriptionIsCancelled() {
+        var subscriber = new TomlFlowSubscriber();
+        var subscription = new RecordingSubscription();
+        subscriber.onSubscribe(subscription);
+
+        subscriber.result().cancel(false);
+
+        assertThat(subscription.isCancelled, equalTo(true));
+    }
+
+    private static ByteBuffer utf8(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class RecordingSubscription implements Flow.Subscription {
+        private final List<Long> requests = new ArrayList<>();
+        private boolean isCancelled = false;
+
+        @Override
+        public void request(long n) {
+            requests.add(n);
+        }
+
+        @Override
+        public void cancel() {
+            isCancelled = true;
+        }
+    }
+}
@@ -3,16 +3,25 @@ package org.zwobble.toml.parser;
 import org.junit.jupiter.api.Test;
 import org.zwobble.precisely.Matcher;
 import org.zwobble.toml.errors.*;
+import org.zwobble.toml.sources.SourcePosition;
 import org.zwobble.toml.sources.SourceRange;
 import org.zwobble.toml.values.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.zwobble.precisely.AssertThat.assertThat;
@@ -49,8 +58,492 @@ public class TomlParserTests {
             )
         );
 
-        // TODO: better source range
-        assertThat(error.sourceRange(), isSourceRange(0, 0));
+        assertThat(error.sourceRange(), isSourceRange(1, 2));
+    }
+
+    @Test
+    public void whenCodepointIsTruncatedThenErrorIsThrown() throws IOException {
+        var error = assertThrows(
+            TomlInvalidUtf8Error.class,
+            () -> TomlParser.parseInputStream(
+                new ByteArrayInputStream(new byte[] {'x', '=', '"', (byte)0xc3, '"'})
+            )
+        );
+
+        assertThat(error.sourceRange(), isSourceRange(3, 4));
+    }
+
+    @Test
+    public void multiByteCodepointsAreDecodedFromInputStream() throws IOException {
+        var result = TomlParser.parseInputStream(new ByteArrayInputStream(
+            "x = \"\u00e9\u65e5\ud83d\ude00\"\ny = 1".getBytes(StandardCharsets.UTF_8)
+        ));
+
+        assertThat(result, isTable(isSequence(
+            isKeyValuePair("x", isString("\u00e9\u65e5\ud83d\ude00", isSourceRange(4, 9))),
+            isKeyValuePair("y", isInt(1, isSourceRange(14, 15)))
+        )));
+    }
+
+    @Test
+    public void surrogatePairsFromReaderAreTreatedAsSingleCodepoint() throws IOException {
+        var result = parse("x = \"\ud83d\ude00\"\ny = 1");
+
+        assertThat(result, isTable(isSequence(
+            isKeyValuePair("x", isString("\ud83d\ude00", isSourceRange(4, 7))),
+            isKeyValuePair("y", isInt(1, isSourceRange(12, 13)))
+        )));
+    }
+
+    @Test
+    public void fileCanBeParsedByStreaming() throws IOException {
+        var result = parseFileWithStrategy(TomlParseOptions.FileReadStrategy.STREAM);
+
+        assertThat(result, isFileContents());
+    }
+
+    @Test
+    public void fileCanBeParsedByReadingAllBytes() throws IOException {
+        var result = parseFileWithStrategy(TomlParseOptions.FileReadStrategy.READ_ALL_BYTES);
+
+        assertThat(result, isFileContents());
+    }
+
+    @Test
+    public void fileCanBeParsedByMemoryMapping() throws IOException {
+        var result = parseFileWithStrategy(TomlParseOptions.FileReadStrategy.MEMORY_MAP);
+
+        assertThat(result, isFileContents());
+    }
+
+    @Test
+    public void whenFileIsAtLeastMemoryMapThresholdThenFileIsParsedAutomatically() throws IOException {
+        var path = Files.createTempFile("toml-parser-tests", ".toml");
+        try {
+            Files.writeString(path, FILE_CONTENTS);
+            var options = TomlParseOptions.defaults().withMemoryMapThreshold(1);
+
+            var result = TomlParser.parseFile(path, options);
+
+            assertThat(result, isFileContents());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void whenFileIsTooLargeToMemoryMapThenFileIsStreamed() throws IOException {
+        var path = Files.createTempFile("toml-parser-tests", ".toml");
+        try {
+            // The file is sparse, so the zero bytes after the comment don't
+            // need to be written to disk.
+            Files.writeString(path, "x = 1\n#");
+            try (var file = new RandomAccessFile(path.toFile(), "rw")) {
+                file.setLength(Integer.MAX_VALUE + 1L);
+            }
+            var options = TomlParseOptions.defaults()
+                .withFileReadStrategy(TomlParseOptions.FileReadStrategy.MEMORY_MAP);
+
+            var error = assertThrows(
+                TomlUnexpectedControlCharacterError.class,
+                () -> TomlParser.parseFile(path, options)
+            );
+
+            assertThat(error.sourceRange(), isSourceRange(7, 8));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void whenMemoryMapThresholdIsNegativeThenErrorIsThrown() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> TomlParseOptions.defaults().withMemoryMapThreshold(-1)
+        );
+    }
+
+    @Test
+    public void stringsCanBeLongerThanReaderBuffer() throws IOException {
+        var string = "\u00e9a\ud83d\ude00".repeat(5000);
+
+        var result = parse("x = \"" + string + "\"\ny = 1");
+
+        assertThat(result, isTable(isSequence(
+            isKeyValuePair("x", isString(string, isSourceRange(4, 15006))),
+            isKeyValuePair("y", isInt(1, isSourceRange(15011, 15012)))
+        )));
+    }
+
+    @Test
+    public void stringsCanBeLongerThanInputStreamBuffer() throws IOException {
+        var string = "\u00e9a\ud83d\ude00".repeat(5000);
+
+        var result = TomlParser.parseInputStream(new ByteArrayInputStream(
+            ("x = \"" + string + "\"\ny = 1").getBytes(StandardCharsets.UTF_8)
+        ));
+
+        assertThat(result, isTable(isSequence(
+            isKeyValuePair("x", isString(string, isSourceRange(4, 15006))),
+            isKeyValuePair("y", isInt(1, isSourceRange(15011, 15012)))
+        )));
+    }
+
+    @Test
+    public void stringCanBeParsed() {
+        var result = TomlParser.parseString("x = \"\u00e9\ud83d\ude00\"\n[a] # \u65e5\nbare-key = 1");
+
+        assertThat(result, isTable(isSequence(
+            isKeyValuePair("x", isString("\u00e9\ud83d\ude00", isSourceRange(4, 8))),
+            isKeyValuePair("a", isTable(isSequence(
+                isKeyValuePair("bare-key", isInt(1, isSourceRange(28, 29)))
+            )))
+        )));
+    }
+
+    @Test
+    public void whenStringIsInvalidThenErrorIsThrown() {
+        var error = assertThrows(
+            TomlUnspecifiedValueError.class,
+            () -> TomlParser.parseString("x =")
+        );
+
+        assertThat(error.sourceRange(), isSourceRange(3, 3));
+    }
+
+    @Test
+    public void whenSourceIsRetainedThenStringsAreParsedFromText() {
+        var options = TomlParseOptions.defaults().withRetainSource(true);
+
+        var result = TomlParser.parseString(
+            "x = \"\u00e9\ud83d\ude00\"\ny = 'a\\b'\nz = \"a\\tb\"\n\"k\" = \"\"",
+            options
+        );
+
+        assertThat(result, isTable(isSequence(
+            isKeyValuePair("x", isString("\u00e9\ud83d\ude00", isSourceRange(4, 8))),
+            isKeyValuePair("y", isString("a\\b", isSourceRange(13, 18))),
+            isKeyValuePair("z", isString("a\tb", isSourceRange(23, 29))),
+            isKeyValuePair("k", isString("", isSourceRange(36, 38)))
+        )));
+    }
+
+    @Test
+    public void whenSourceIsRetainedThenStringsAreParsedFromFile() throws IOException {
+        var path = Files.createTempFile("toml-parser-tests", ".toml");
+        try {
+            Files.writeString(path, FILE_CONTENTS);
+            var options = TomlParseOptions.defaults()
+                .withFileReadStrategy(TomlParseOptions.FileReadStrategy.READ_ALL_BYTES)
+                .withRetainSource(true);
+
+            var result = TomlParser.parseFile(path, options);
+
+            assertThat(result, isFileContents());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void sourceRangesHaveLinesAndColumns() throws IOException {
+        var result = parse("x = 1\r\n\n[t]\ny = \"\"\"\n\n\"\"\"\nz = 'a' # \u00e9\ud83d\ude00\nw = 2");
+
+        var t = (TomlTable) result.get("t");
+        var w = (TomlInt) t.get("w");
+        assertThat(w.sourceRange().startLine(), equalTo(OptionalInt.of(8)));
+        assertThat(w.sourceRange().startColumn(), equalTo(OptionalInt.of(5)));
+        var z = (TomlString) t.get("z");
+        assertThat(z.sourceRange().startLine(), equalTo(OptionalInt.of(7)));
+        assertThat(z.sourceRange().startColumn(), equalTo(OptionalInt.of(5)));
+        var x = (TomlInt) result.get("x");
+        assertThat(x.sourceRange().startLine(), equalTo(OptionalInt.of(1)));
+        assertThat(x.sourceRange().startColumn(), equalTo(OptionalInt.of(5)));
+    }
+
+    @Test
+    public void valuesCreatedWithParsedSourceRangeKeepLinesAndColumns() throws IOException {
+        var result = parse("x = 1\ny = 1979-05-27");
+        var sourceRange = ((TomlLocalDate) result.get("y")).sourceRange();
+
+        var value = new TomlFloat(1.5, sourceRange);
+
+        assertThat(value.sourceRange(), equalTo(sourceRange));
+        assertThat(value.sourceRange().startLine(), equalTo(OptionalInt.of(2)));
+        assertThat(value.sourceRange().startColumn(), equalTo(OptionalInt.of(5)));
+    }
+
+    @Test
+    public void linesAreCountedWithinMultiLineValues() throws IOException {
+        var result = parse(
+            "a = [\n  1, # c\n  2\n]\nb = \"\"\"x\ny\\\n  z\"\"\"\nc = '''\np\r\nq'''\nd = 3"
+        );
+
+        var a = (TomlInt) ((TomlArray) result.get("a")).get(1);
+        assertThat(a.sourceRange().startLine(), equalTo(OptionalInt.of(3)));
+        assertThat(a.sourceRange().startColumn(), equalTo(OptionalInt.of(3)));
+        var d = (TomlInt) result.get("d");
+        assertThat(d.sourceRange().startLine(), equalTo(OptionalInt.of(11)));
+        assertThat(d.sourceRange().startColumn(), equalTo(OptionalInt.of(5)));
+    }
+
+    @Test
+    public void sourceRangesWithoutLineIndexHaveNoLinesOrColumns() {
+        var sourceRange = new SourcePosition(1).to(new SourcePosition(2));
+
+        assertThat(sourceRange.startLine(), equalTo(OptionalInt.empty()));
+        assertThat(sourceRange.startColumn(), equalTo(OptionalInt.empty()));
+    }
+
+    @Test
+    public void errorsHaveLinesAndColumns() {
+        var error = assertThrows(
+            TomlUnspecifiedValueError.class,
+            () -> TomlParser.parseString("x = 1\nab = 2\n  y =\n")
+        );
+
+        assertThat(error.sourceRange().startLine(), equalTo(OptionalInt.of(3)));
+        assertThat(error.sourceRange().startColumn(), equalTo(OptionalInt.of(6)));
+    }
+
+    @Test
+    public void whenSourceRangesAreDisabledThenValuesHaveNoSourceRange() {
+        var options = TomlParseOptions.defaults().withSourceRanges(false);
+
+        var result = TomlParser.parseString(
+            "a = true\nb = 1\nc = 1.5\nd = \"x\"\ne = 1979-05-27\nf = 100000",
+            options
+        );
+
+        assertThat(result, isTable(isSequence(
+            isKeyValuePair("a", isBool(true, equalTo(null))),
+            isKeyValuePair("b", isInt(1, equalTo(null))),
+            isKeyValuePair("c", isFloat(1.5, equalTo(null))),
+            isKeyValuePair("d", isString("x", equalTo(null))),
+            isKeyValuePair("e", isLocalDate(LocalDate.of(1979, 5, 27), equalTo(null))),
+            isKeyValuePair("f", isInt(100000, equalTo(null)))
+        )));
+    }
+
+    @Test
+    public void whenSourceRangesAreDisabledThenBooleansAndSmallIntegersAreShared() {
+        var options = TomlParseOptions.defaults().withSourceRanges(false);
+
+        var result = TomlParser.parseString("a = [true, true, 7, 7, 100000, 100000]", options);
+
+        var elements = new ArrayList<TomlValue>();
+        ((TomlArray) result.get("a")).forEach(elements::add);
+        assertThat(elements.get(0) == elements.get(1), equalTo(true));
+        assertThat(elements.get(2) == elements.get(3), equalTo(true));
+        assertThat(elements.get(4) == elements.get(5), equalTo(false));
+    }
+
+    @Test
+    public void whenSourceRangesAreDisabledThenErrorsHaveSourceRangeWithoutLinesOrColumns() {
+        var options = TomlParseOptions.defaults().withSourceRanges(false);
+
+        var error = assertThrows(
+            TomlInvalidNumberError.class,
+            () -> TomlParser.parseString("x = 1\ny = 012", options)
+        );
+
+        assertThat(error.sourceRange(), isSourceRange(10, 13));
+        assertThat(error.sourceRange().startLine(), equalTo(OptionalInt.empty()));
+        assertThat(error.sourceRange().startColumn(), equalTo(OptionalInt.empty()));
+    }
+
+    @Test
+    public void whenScalarsAreLazyThenValuesAreTheSameAsEagerValues() {
+        var text = "a = -1.5e3\nb = 0.1\nc = 1979-05-27\nd = 1979-05-27T07:32:00.5\n" +
+            "e = 1979-05-27T07:32:00-07:00\nf = 07:32:00\ng = 1979-05-27 07:32:00Z\n" +
+            "h = \"x\\ty\"\ni = 1";
+        var options = TomlParseOptions.defaults().withLazyScalars(true);
+
+        var result = TomlParser.parseString(text, options);
+
+        assertThat(result, equalTo(TomlParser.parseString(text)));
+    }
+
+    @Test
+    public void whenScalarsAreLazyThenInvalidDatesAreReportedWhileParsing() {
+        var options = TomlParseOptions.defaults().withLazyScalars(true);
+
+        var error = assertThrows(
+            TomlInvalidLocalDateError.class,
+            () -> TomlParser.parseString("x = 1979-02-30", options)
+        );
+
+        assertThat(error.sourceRange(), isSourceRange(4, 14));
+    }
+
+    @Test
+    public void whenScalarErrorsAreDeferredThenInvalidDatesAreReportedWhenDecoded() {
+        var options = TomlParseOptions.defaults()
+            .withLazyScalars(true)
+            .withDeferredScalarErrors(true);
+
+        var result = TomlParser.parseString("x = 1979-02-30\ny = 25:00:00", options);
+
+        var dateError = assertThrows(
+            TomlInvalidLocalDateError.class,
+            () -> ((TomlLocalDate) result.get("x")).value()
+        );
+        assertThat(dateError.localDateString(), equalTo("1979-02-30"));
+        assertThat(dateError.sourceRange(), isSourceRange(4, 14));
+        assertThrows(
+            TomlInvalidLocalTimeError.class,
+            () -> ((TomlLocalTime) result.get("y")).value()
+        );
+    }
+
+    @Test
+    public void whenDateTimesAreCompactThenValuesAreTheSameAsDefaultValues() {
+        var text = "a = 1979-05-27\nb = 1979-05-27T07:32:00.999999999\n" +
+            "c = 1979-05-27T07:32:00-18:00\nd = 0000-01-01T00:00:00+17:59\ne = 23:59:59.5\n" +
+            "f = 1979-05-27 07:32:00Z\ng = 1979-05-27";
+        var options = TomlParseOptions.defaults()
+            .withCompactDateTimes(true)
+            .withLazyScalars(true);
+
+        var result = TomlParser.parseString(text, options);
+
+        assertThat(result, equalTo(TomlParser.parseString(text)));
+    }
+
+    @Test
+    public void compactDateTimesCanRepresentAnyValue() {
+        assertThat(TomlLocalDate.compact(LocalDate.MIN, null).value(), equalTo(LocalDate.MIN));
+        assertThat(TomlLocalDate.compact(LocalDate.MAX, null).value(), equalTo(LocalDate.MAX));
+        assertThat(TomlLocalTime.compact(LocalTime.MAX, null).value(), equalTo(LocalTime.MAX));
+        assertThat(TomlLocalDateTime.compact(LocalDateTime.MIN, null).value(), equalTo(LocalDateTime.MIN));
+        assertThat(TomlOffsetDateTime.compact(OffsetDateTime.MIN, null).value(), equalTo(OffsetDateTime.MIN));
+        assertThat(TomlOffsetDateTime.compact(OffsetDateTime.MAX, null).value(), equalTo(OffsetDateTime.MAX));
+    }
+
+    @Test
+    public void keysThatAppearInManyTablesAreTheSameString() throws IOException {
+        var text = "[[servers]]\nhost = 1\n\"port\" = 2\n[[servers]]\nhost = 3\nport = 4\n";
+        var results = List.of(
+            parse(text),
+            TomlParser.parseString(text),
+            TomlParser.parseByteBuffer(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)))
+        );
+
+        for (var result : results) {
+            var keys = new ArrayList<String>();
+            for (var server : (TomlArray) result.get("servers")) {
+                for (var pair : (TomlTable) server) {
+                    keys.add(pair.key());
+                }
+            }
+
+            assertThat(keys, isSequence(equalTo("host"), equalTo("port"), equalTo("host"), equalTo("port")));
+            assertThat(keys.get(0) == keys.get(2), equalTo(true));
+            assertThat(keys.get(1) == keys.get(3), equalTo(true));
+        }
+    }
+
+    @Test
+    public void keysCanBeFoundInSmallAndLargeTables() throws IOException {
+        for (var size = 0; size <= 20; size++) {
+            var inlineTable = new StringBuilder("inline = {");
+            var table = new StringBuilder("[table]\n");
+            for (var index = 0; index < size; index++) {
+                inlineTable.append(index == 0 ? " " : ", ").append("k").append(index).append(" = ").append(index);
+                table.append("k").append(index).append(" = ").append(index).append("\n");
+            }
+            var result = parse(inlineTable.append(" }\n").append(table).toString());
+
+            for (var name : List.of("inline", "table")) {
+                var subTable = (TomlTable) result.get(name);
+                for (var index = 0; index < size; index++) {
+                    // Use a different instance from the parsed key.
+                    var key = new String("k" + index);
+                    assertThat(subTable.get(key), isInt(index));
+                }
+                assertThat(subTable.get("k" + size), equalTo(null));
+            }
+        }
+    }
+
+    @Test
+    public void directByteBufferCanBeParsedWithoutChangingPositionOrLimit() {
+        var bytes = ("xx" + FILE_CONTENTS + "yy").getBytes(StandardCharsets.UTF_8);
+        var buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes);
+        buffer.position(2).limit(bytes.length - 2);
+
+        var result = TomlParser.parseByteBuffer(buffer);
+
+        assertThat(result, isFileContents());
+        assertThat(buffer.position(), equalTo(2));
+        assertThat(buffer.limit(), equalTo(bytes.length - 2));
+    }
+
+    @Test
+    public void readOnlyByteBufferCanBeParsed() {
+        var bytes = FILE_CONTENTS.getBytes(StandardCharsets.UTF_8);
+        var buffer = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+
+        var result = TomlParser.parseByteBuffer(buffer);
+
+        assertThat(result, isFileContents());
+    }
+
+    @Test
+    public void byteChannelCanBeParsed() throws IOException {
+        var bytes = FILE_CONTENTS.getBytes(StandardCharsets.UTF_8);
+        var channel = Channels.newChannel(new ByteArrayInputStream(bytes));
+
+        var result = TomlParser.parseByteChannel(channel);
+
+        assertThat(result, isFileContents());
+    }
+
+    @Test
+    public void optionsAreUsedByEveryEntryPoint() throws IOException {
+        var text = "x = 1";
+        var bytes = text.getBytes(StandardCharsets.UTF_8);
+        var options = TomlParseOptions.defaults().withSourceRanges(false);
+        var results = List.of(
+            TomlParser.parseString(text, options),
+            TomlParser.parseInputStream(new ByteArrayInputStream(bytes), options),
+            TomlParser.parseByteBuffer(ByteBuffer.wrap(bytes), options),
+            TomlParser.parseByteChannel(Channels.newChannel(new ByteArrayInputStream(bytes)), options),
+            TomlParser.parseReader(new StringReader(text), options)
+        );
+
+        for (var result : results) {
+            assertThat(result, isTable(isSequence(
+                isKeyValuePair("x", isInt(1, equalTo(null)))
+            )));
+        }
+    }
+
+    private static final String FILE_CONTENTS = "x = \"\u00e9\"\n[a]\ny = [1, 2]";
+
+    private TomlTable parseFileWithStrategy(
+        TomlParseOptions.FileReadStrategy strategy
+    ) throws IOException {
+        var path = Files.createTempFile("toml-parser-tests", ".toml");
+        try {
+            Files.writeString(path, FILE_CONTENTS);
+            var options = TomlParseOptions.defaults().withFileReadStrategy(strategy);
+            return TomlParser.parseFile(path, options);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private Matcher<TomlValue> isFileContents() {
+        return isTable(isSequence(
+            isKeyValuePair("x", isString("\u00e9", isSourceRange(4, 7))),
+            isKeyValuePair("a", isTable(isSequence(
+                isKeyValuePair("y", isArray(isSequence(
+                    isInt(1, isSourceRange(17, 18)),
+                    isInt(2, isSourceRange(20, 21))
+                )))
+            )))
+        ));
     }
 
     // == Key/Value Pairs ==
@@ -566,6 +1059,38 @@ public class TomlParserTests {
         assertThat(error.sourceRange(), isSourceRange(4, 40));
     }
 
+    @Test
+    public void intMinimumAndMaximum() throws IOException {
+        var result = parse("x = -9_223_372_036_854_775_808\ny = 9223372036854775807");
+
+        assertThat(result, isTable(isSequence(
+            isKeyValuePair("x", isInt(Long.MIN_VALUE, isSourceRange(4, 30))),
+            isKeyValuePair("y", isInt(Long.MAX_VALUE, isSourceRange(35, 54)))
+        )));
+    }
+
+    @Test
+    public void whenIntIsOneLargerThanMaximumThenErrorIsThrown() throws IOException {
+        var error = assertThrows(
+            TomlInvalidNumberError.class,
+            () -> parse("x = +9223372036854775808")
+        );
+
+        assertThat(error.numberString(), equalTo("+9223372036854775808"));
+        assertThat(error.sourceRange(), isSourceRange(4, 24));
+    }
+
+    @Test
+    public void whenIntHexIsLargerThan64BitsThenErrorIsThrown() throws IOException {
+        var error = assertThrows(
+            TomlInvalidNumberError.class,
+            () -> parse("x = 0x00AbCdEf_AbCdEf_AbCdEf_AbCdEf")
+        );
+
+        assertThat(error.numberString(), equalTo("00AbCdEfAbCdEfAbCdEfAbCdEf"));
+        assertThat(error.sourceRange(), isSourceRange(4, 35));
+    }
+
     @Test
     public void whenIntHasLeadingZeroThenErrorIsThrown() throws IOException {
         var error = assertThrows(
@@ -2247,6 +2772,17 @@ public class TomlParserTests {
         assertThat(error.sourceRange(), isSourceRange(4, 14));
     }
 
+    @Test
+    public void whenLocalDateFollowedBySpaceIsInvalidThenErrorIsThrown() throws IOException {
+        var error = assertThrows(
+            TomlInvalidLocalDateError.class,
+            () -> parse("x = 1979-02-30 ")
+        );
+
+        assertThat(error.localDateString(), equalTo("1979-02-30"));
+        assertThat(error.sourceRange(), isSourceRange(4, 14));
+    }
+
     // == Local Time ==
 
     @Test
@@ -2366,6 +2902,96 @@ public class TomlParserTests {
         )));
     }
 
+    @Test
+    public void arrayOfIntegersCanBeReadAsPrimitives() throws IOException {
+        var result = parse("x = [1, 2000, -3]");
+
+        var array = (TomlArray) result.get("x");
+        assertThat(array.size(), equalTo(3));
+        assertThat(array.getLong(1), equalTo(2000L));
+        assertThat(array.longStream().sum(), equalTo(1998L));
+        assertThat(array, isArray(isSequence(
+            isInt(1, isSourceRange(5, 6)),
+            isInt(2000, isSourceRange(8, 12)),
+            isInt(-3, isSourceRange(14, 16))
+        )));
+    }
+
+    @Test
+    public void arrayOfFloatsCanBeReadAsPrimitives() throws IOException {
+        var result = parse("x = [1.5, -2.0]");
+
+        var array = (TomlArray) result.get("x");
+        assertThat(array.getDouble(0), equalTo(1.5));
+        assertThat(array.doubleStream().sum(), equalTo(-0.5));
+        assertThat(array, isArray(isSequence(isFloat(1.5), isFloat(-2.0))));
+    }
+
+    @Test
+    public void arrayOfBooleansCanBeReadAsPrimitives() throws IOException {
+        var result = parse("x = [true, false, true]");
+
+        var array = (TomlArray) result.get("x");
+        assertThat(array.getBoolean(1), equalTo(false));
+        assertThat(array.getBoolean(2), equalTo(true));
+        assertThat(array, isArray(isSequence(isBool(true), isBool(false), isBool(true))));
+    }
+
+    @Test
+    public void primitiveArraysAreEqualToArraysOfTheSameValues() {
+        var options = TomlParseOptions.defaults().withSourceRanges(false);
+        var result = TomlParser.parseString("x = [1, 2, 3]", options);
+
+        var array = (TomlArray) result.get("x");
+        assertThat(array, equalTo(TomlArray.of(List.of(
+            TomlInt.of(1, null),
+            TomlInt.of(2, null),
+            TomlInt.of(3, null)
+        ))));
+    }
+
+    @Test
+    public void whenElementOfMixedArrayIsNotAnIntegerThenGetLongThrows() throws IOException {
+        var result = parse("x = [1, 'two']");
+
+        var array = (TomlArray) result.get("x");
+        assertThat(array.getLong(0), equalTo(1L));
+        assertThrows(ClassCastException.class, () -> array.getLong(1));
+    }
+
+    @Test
+    public void arrayOfManyIntegersCanBeReadAsPrimitives() throws IOException {
+        var result = parse("x = [1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12]");
+
+        var array = (TomlArray) result.get("x");
+        assertThat(array.size(), equalTo(12));
+        assertThat(array.longStream().sum(), equalTo(78L));
+        assertThat(array.get(11), isInt(12, isSourceRange(40, 42)));
+    }
+
+    @Test
+    public void whenPrimitiveArrayHasElementOfAnotherTypeThenEarlierElementsAreKept() throws IOException {
+        var result = parse("x = [1, 2, 3.5, true, 'four']");
+
+        assertThat(result.get("x"), isArray(isSequence(
+            isInt(1, isSourceRange(5, 6)),
+            isInt(2, isSourceRange(8, 9)),
+            isFloat(3.5),
+            isBool(true),
+            isString("four")
+        )));
+    }
+
+    @Test
+    public void whenArrayOfBooleansHasIntegerElementThenElementsAreKept() throws IOException {
+        var result = parse("x = [true, false, 3]");
+
+        var array = (TomlArray) result.get("x");
+        assertThat(array.getBoolean(1), equalTo(false));
+        assertThat(array.getLong(2), equalTo(3L));
+        assertThat(array, isArray(isSequence(isBool(true), isBool(false), isInt(3))));
+    }
+
     // == Tables ==
 
     @Test
@@ -7,6 +7,7 @@ import org.zwobble.toml.errors.TomlParseError;
 import org.zwobble.toml.values.*;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.DecimalFormat;
@@ -63,6 +64,58 @@ public class TomlParserTomlTestTests {
             });
     }
 
+    @TestFactory
+    public Stream<DynamicTest> pushParserTests() throws IOException {
+        var tomlTestPath = Path.of("toml-test/tests");
+        var testTomlFilePaths = Files.readAllLines(tomlTestPath.resolve("files-toml-1.0.0"));
+
+        return testTomlFilePaths.stream()
+            .filter(testTomlFilePath -> testTomlFilePath.endsWith(".toml"))
+            .map(testTomlFilePath -> {
+                return DynamicTest.dynamicTest(testTomlFilePath, () -> {
+                    var inputTomlPath = tomlTestPath.resolve(testTomlFilePath);
+                    var inputBytes = Files.readAllBytes(inputTomlPath);
+
+                    var testType = testTomlFilePath.substring(0, testTomlFilePath.indexOf('/'));
+
+                    switch (testType) {
+                        case "valid": {
+                            var expectedJsonValue = tomlValueToJsonValue(TomlParser.parseFile(inputTomlPath));
+
+                            for (var splitIndex = 0; splitIndex <= inputBytes.length; splitIndex++) {
+                                var tomlValue = parseInTwoChunks(inputBytes, splitIndex);
+
+                                var jsonValue = tomlValueToJsonValue(tomlValue);
+                                assertEquals(expectedJsonValue, jsonValue, "Split at byte " + splitIndex);
+                            }
+
+                            break;
+                        }
+                        case "invalid": {
+                            for (var splitIndex = 0; splitIndex <= inputBytes.length; splitIndex++) {
+                                var finalSplitIndex = splitIndex;
+                                assertThrows(
+                                    TomlParseError.class,
+                                    () -> parseInTwoChunks(inputBytes, finalSplitIndex)
+                                );
+                            }
+                            break;
+                        }
+                        default: {
+                            throw new IllegalArgumentException("Unexpected test type: " + testType);
+                        }
+                    }
+                });
+            });
+    }
+
+    private static TomlTable parseInTwoChunks(byte[] bytes, int splitIndex) {
+        var parser = new TomlPushParser();
+        parser.feed(ByteBuffer.wrap(bytes, 0, splitIndex));
+        parser.feed(ByteBuffer.wrap(bytes, splitIndex, bytes.length - splitIndex));
+        return parser.finish();
+    }
+
     private static Path replaceExtension(Path path, String newExtension) {
         var fileName = path.getFileName().toString();
         var fileNameNoExtension = fileName.substring(0, fileName.lastIndexOf('.'));
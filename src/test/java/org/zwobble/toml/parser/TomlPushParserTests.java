@@ -0,0 +1,221 @@
+package org.zwobble.toml.parser;
+
+import org.junit.jupiter.api.Test;
+import org.zwobble.toml.errors.TomlInvalidUtf8Error;
+import org.zwobble.toml.errors.TomlParseError;
+import org.zwobble.toml.errors.TomlUnclosedStringError;
+import org.zwobble.toml.values.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.zwobble.precisely.AssertThat.assertThat;
+import static org.zwobble.precisely.Matchers.equalTo;
+
+public class TomlPushParserTests {
+    private static final String DOCUMENT = """
+        # Comment with é
+        title = "Café 😀 \\"quoted\\""
+        count = 1_234_567
+        ratio = 6.626e-34
+        date = 1979-05-27T07:32:00Z
+
+        [table]
+        multi-line = \"\"\"
+        first line "with quotes"
+        second line \\
+          continued\"\"\"\"\"
+        literal = '''it's "raw"'''
+        array = [
+          1, # comment ]
+          "]",
+          { x = 1 },
+        ]
+
+        [[items]]
+        name = 'first'
+
+        [[items]]
+        name = "second"
+        """;
+
+    @Test
+    public void whenDocumentIsFedInOneChunkThenResultIsSameAsParser() {
+        var bytes = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+        var parser = new TomlPushParser();
+
+        parser.feed(ByteBuffer.wrap(bytes));
+        var result = parser.finish();
+
+        assertThat(describe(result), equalTo(describe(TomlParser.parseString(DOCUMENT))));
+    }
+
+    @Test
+    public void whenDocumentIsSplitAtAnyByteThenResultIsSameAsParser() {
+        var bytes = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+        var expected = describe(TomlParser.parseString(DOCUMENT));
+
+        for (var splitIndex = 0; splitIndex <= bytes.length; splitIndex++) {
+            var parser = new TomlPushParser();
+
+            parser.feed(ByteBuffer.wrap(bytes, 0, splitIndex));
+            parser.feed(ByteBuffer.wrap(bytes, splitIndex, bytes.length - splitIndex));
+            var result = parser.finish();
+
+            assertThat(describe(result), equalTo(expected));
+        }
+    }
+
+    @Test
+    public void whenDocumentIsFedOneByteAtATimeThenResultIsSameAsParser() {
+        var bytes = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+        var parser = new TomlPushParser();
+
+        for (var index = 0; index < bytes.length; index++) {
+            parser.feed(ByteBuffer.wrap(bytes, index, 1));
+        }
+        var result = parser.finish();
+
+        assertThat(describe(result), equalTo(describe(TomlParser.parseString(DOCUMENT))));
+    }
+
+    @Test
+    public void whenDocumentIsSplitAtAnyByteWithOptionsThenResultIsSameAsParserWithOptions() {
+        var bytes = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+        var options = TomlParseOptions.defaults()
+            .withLazyScalars(true)
+            .withCompactDateTimes(true)
+            .withSymbolTable(new TomlSymbolTable(1024));
+        var expected = describe(TomlParser.parseString(DOCUMENT, options));
+
+        for (var splitIndex = 0; splitIndex <= bytes.length; splitIndex++) {
+            var parser = new TomlPushParser(options);
+
+            parser.feed(ByteBuffer.wrap(bytes, 0, splitIndex));
+            parser.feed(ByteBuffer.wrap(bytes, splitIndex, bytes.length - splitIndex));
+            var result = parser.finish();
+
+            assertThat(describe(result), equalTo(expected));
+        }
+    }
+
+    @Test
+    public void whenSourceRangesAreDisabledThenValuesHaveNoSourceRanges() {
+        var parser = new TomlPushParser(TomlParseOptions.defaults().withSourceRanges(false));
+
+        parser.feed(utf8("x = \"a\"\n"));
+        var result = parser.finish();
+
+        assertThat(((TomlString) result.get("x")).sourceRange(), equalTo(null));
+    }
+
+    @Test
+    public void whenSourceIsRetainedThenValuesAreNotAffectedByReusedChunks() {
+        var parser = new TomlPushParser(TomlParseOptions.defaults().withRetainSource(true));
+        var chunk = "x = \"abc\"\n".getBytes(StandardCharsets.UTF_8);
+
+        parser.feed(ByteBuffer.wrap(chunk));
+        chunk[5] = 'z';
+        var result = parser.finish();
+
+        assertThat(((TomlString) result.get("x")).value(), equalTo("abc"));
+    }
+
+    @Test
+    public void chunkIsConsumed() {
+        var chunk = ByteBuffer.wrap("x = 1\n".getBytes(StandardCharsets.UTF_8));
+        var parser = new TomlPushParser();
+
+        parser.feed(chunk);
+
+        assertThat(chunk.remaining(), equalTo(0));
+    }
+
+    @Test
+    public void errorsInLaterChunksHavePositionsWithinDocument() {
+        var parser = new TomlPushParser();
+        parser.feed(utf8("x = \"é😀\"\n"));
+
+        var error = assertThrows(
+            TomlUnclosedStringError.class,
+            () -> {
+                parser.feed(utf8("y = \"abc"));
+                parser.finish();
+            }
+        );
+
+        assertThat(error.sourceRange().start().codePointIndex(), equalTo(17));
+        assertThat(error.sourceRange().startLine(), equalTo(OptionalInt.of(2)));
+        assertThat(error.sourceRange().startColumn(), equalTo(OptionalInt.of(9)));
+    }
+
+    @Test
+    public void whenUtf8SequenceIsSplitBetweenChunksThenSequenceIsValidated() {
+        var parser = new TomlPushParser();
+        parser.feed(ByteBuffer.wrap(new byte[] {'#', ' ', (byte) 0xed}));
+
+        var error = assertThrows(
+            TomlInvalidUtf8Error.class,
+            () -> {
+                parser.feed(ByteBuffer.wrap(new byte[] {(byte) 0xa0, (byte) 0x80, '\n'}));
+                parser.finish();
+            }
+        );
+
+        assertThat(error.sourceRange().start().codePointIndex(), equalTo(2));
+    }
+
+    @Test
+    public void whenParserHasFailedThenFeedingThrowsIllegalStateException() {
+        var parser = new TomlPushParser();
+        assertThrows(TomlParseError.class, () -> parser.feed(utf8("x = \n")));
+
+        assertThrows(IllegalStateException.class, () -> parser.feed(utf8("y = 1\n")));
+    }
+
+    @Test
+    public void whenParserHasFinishedThenFeedingThrowsIllegalStateException() {
+        var parser = new TomlPushParser();
+        parser.finish();
+
+        assertThrows(IllegalStateException.class, () -> parser.feed(utf8("y = 1\n")));
+    }
+
+    private static ByteBuffer utf8(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String describe(TomlValue value) {
+        return switch (value) {
+            case TomlArray array -> {
+                var description = new StringBuilder("[");
+                for (var element : array) {
+                    description.append(describe(element)).append(", ");
+                }
+                yield description.append("]").toString();
+            }
+            case TomlTable table -> {
+                var description = new StringBuilder("{");
+                for (var pair : table) {
+                    description.append(pair.key()).append(" = ").append(describe(pair.value())).append(", ");
+                }
+                yield description.append("}").toString();
+            }
+            case TomlBool bool -> describe(bool.value(), bool.sourceRange());
+            case TomlFloat tomlFloat -> describe(tomlFloat.value(), tomlFloat.sourceRange());
+            case TomlInt tomlInt -> describe(tomlInt.value(), tomlInt.sourceRange());
+            case TomlLocalDate localDate -> describe(localDate.value(), localDate.sourceRange());
+            case TomlLocalDateTime localDateTime -> describe(localDateTime.value(), localDateTime.sourceRange());
+            case TomlLocalTime localTime -> describe(localTime.value(), localTime.sourceRange());
+            case TomlOffsetDateTime offsetDateTime -> describe(offsetDateTime.value(), offsetDateTime.sourceRange());
+            case TomlString string -> describe(string.value(), string.sourceRange());
+        };
+    }
+
+    private static String describe(Object value, org.zwobble.toml.sources.SourceRange sourceRange) {
+        return value + " @ " + sourceRange.start().codePointIndex() + "-" + sourceRange.end().codePointIndex() +
+            " (" + sourceRange.startLine().getAsInt() + ":" + sourceRange.startColumn().getAsInt() + ")";
+    }
+}
@@ -0,0 +1,160 @@
+package org.zwobble.toml.parser;
+
+import org.junit.jupiter.api.Test;
+import org.zwobble.toml.values.TomlString;
+import org.zwobble.toml.values.TomlTable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.zwobble.precisely.AssertThat.assertThat;
+import static org.zwobble.precisely.Matchers.equalTo;
+
+public class TomlSymbolTableTests {
+    @Test
+    public void capacityIsRoundedUpToPowerOfTwo() {
+        assertThat(new TomlSymbolTable(1).capacity(), equalTo(4));
+        assertThat(new TomlSymbolTable(100).capacity(), equalTo(128));
+        assertThat(new TomlSymbolTable(128).capacity(), equalTo(128));
+    }
+
+    @Test
+    public void whenCapacityIsNotPositiveThenErrorIsThrown() {
+        assertThrows(IllegalArgumentException.class, () -> new TomlSymbolTable(0));
+    }
+
+    @Test
+    public void stringsWithTheSameCharactersAreTheSameInstance() {
+        var symbolTable = new TomlSymbolTable(16);
+
+        var first = get(symbolTable, new StringBuilder("eu-west-1"));
+        var second = get(symbolTable, new StringBuilder("eu-west-1"));
+
+        assertThat(first, equalTo("eu-west-1"));
+        assertThat(second == first, equalTo(true));
+    }
+
+    @Test
+    public void oldestStringInSetIsEvicted() {
+        var symbolTable = new TomlSymbolTable(4);
+
+        var first = get(symbolTable, "a");
+        get(symbolTable, "b");
+        get(symbolTable, "c");
+        get(symbolTable, "d");
+        var fifth = get(symbolTable, "e");
+
+        assertThat(get(symbolTable, new String("e")) == fifth, equalTo(true));
+        assertThat(get(symbolTable, new String("a")) == first, equalTo(false));
+    }
+
+    @Test
+    public void recentlyFoundStringIsNotEvicted() {
+        var symbolTable = new TomlSymbolTable(4);
+
+        var first = get(symbolTable, "a");
+        var second = get(symbolTable, "b");
+        get(symbolTable, "c");
+        get(symbolTable, "d");
+        get(symbolTable, new String("a"));
+        get(symbolTable, "e");
+
+        assertThat(get(symbolTable, new String("a")) == first, equalTo(true));
+        assertThat(get(symbolTable, new String("b")) == second, equalTo(false));
+    }
+
+    @Test
+    public void documentsParsedWithTheSameSymbolTableShareKeysAndStringValues() throws IOException {
+        var options = TomlParseOptions.defaults().withSymbolTable(new TomlSymbolTable(1024));
+
+        var first = TomlParser.parseString("region = \"eu-west-1\"", options);
+        var second = TomlParser.parseInputStream(
+            new ByteArrayInputStream("region = 'eu-west-1'".getBytes(StandardCharsets.UTF_8)),
+            options
+        );
+
+        assertThat(firstKey(first) == firstKey(second), equalTo(true));
+        assertThat(stringValue(first, "region") == stringValue(second, "region"), equalTo(true));
+    }
+
+    @Test
+    public void longStringValuesAreNotShared() {
+        var options = TomlParseOptions.defaults().withSymbolTable(new TomlSymbolTable(1024));
+        var text = "x = \"" + "a".repeat(TomlSymbolTable.MAX_STRING_VALUE_LENGTH + 1) + "\"";
+
+        var first = TomlParser.parseString(text, options);
+        var second = TomlParser.parseString(text, options);
+
+        assertThat(stringValue(first, "x") == stringValue(second, "x"), equalTo(false));
+        assertThat(stringValue(first, "x"), equalTo(stringValue(second, "x")));
+    }
+
+    @Test
+    public void lengthOfRetainedStringValuesIsCountedInChars() throws IOException {
+        var options = TomlParseOptions.defaults()
+            .withFileReadStrategy(TomlParseOptions.FileReadStrategy.READ_ALL_BYTES)
+            .withRetainSource(true)
+            .withSymbolTable(new TomlSymbolTable(1024));
+        var longest = "\ud83d\ude00".repeat(TomlSymbolTable.MAX_STRING_VALUE_LENGTH / 2);
+        var path = Files.createTempFile("toml-symbol-table-tests", ".toml");
+        try {
+            Files.writeString(path, "x = '" + longest + "'\ny = '" + longest + "\u00e9'");
+
+            var first = TomlParser.parseFile(path, options);
+            var second = TomlParser.parseFile(path, options);
+
+            assertThat(stringValue(first, "x"), equalTo(longest));
+            assertThat(stringValue(first, "x") == stringValue(second, "x"), equalTo(true));
+            assertThat(stringValue(first, "y"), equalTo(longest + "\u00e9"));
+            assertThat(stringValue(first, "y") == stringValue(second, "y"), equalTo(false));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void symbolTableCanBeSharedByConcurrentParses() throws Exception {
+        var options = TomlParseOptions.defaults().withSymbolTable(new TomlSymbolTable(64));
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var tasks = new ArrayList<Callable<Boolean>>();
+            for (var task = 0; task < 8; task++) {
+                tasks.add(() -> {
+                    for (var iteration = 0; iteration < 2000; iteration++) {
+                        var key = "key" + (iteration % 100);
+                        var value = "value" + (iteration % 150);
+                        var result = TomlParser.parseString(key + " = \"" + value + "\"", options);
+                        if (!stringValue(result, key).equals(value)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                });
+            }
+
+            for (var future : executor.invokeAll(tasks)) {
+                assertThat(future.get(), equalTo(true));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String get(TomlSymbolTable symbolTable, CharSequence text) {
+        return symbolTable.get(text, 0, text.length(), KeyTable.hash(text, 0, text.length()));
+    }
+
+    private static String firstKey(TomlTable table) {
+        return table.iterator().next().key();
+    }
+
+    private static String stringValue(TomlTable table, String key) {
+        return ((TomlString) table.get(key)).value();
+    }
+}
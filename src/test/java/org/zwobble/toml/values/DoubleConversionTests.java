@@ -0,0 +1,125 @@
+package org.zwobble.toml.values;
+
+import org.junit.jupiter.api.Test;
+import org.zwobble.toml.parser.TomlParser;
+
+import java.util.Random;
+
+import static org.zwobble.precisely.AssertThat.assertThat;
+import static org.zwobble.precisely.Matchers.equalTo;
+
+public class DoubleConversionTests {
+    @Test
+    public void edgeCasesMatchParseDouble() {
+        var cases = new String[] {
+            "0e0",
+            "1e0",
+            "1e-342",
+            "1e-343",
+            "1e308",
+            "1e309",
+            "17976931348623157e292",
+            "17976931348623158e292",
+            "17976931348623159e292",
+            "22250738585072011e-324",
+            "22250738585072014e-324",
+            "49406564584124654e-340",
+            "24703282292062327e-340",
+            "24703282292062328e-340",
+            "9007199254740993e0",
+            "9007199254740995e0",
+            "18446744073709551615e0",
+            "18446744073709551615e-20",
+            "9223372036854775808e0",
+            "7450580596923828125e-27",
+            "3e-324",
+            "5e-324",
+            "123456789012345678e-5",
+        };
+
+        for (var text : cases) {
+            assertMatchesParseDouble(text);
+        }
+    }
+
+    @Test
+    public void randomSignificandsAndExponentsMatchParseDouble() {
+        var random = new Random(42);
+
+        for (var iteration = 0; iteration < 200000; iteration++) {
+            long significand;
+            switch (random.nextInt(4)) {
+                case 0 -> significand = random.nextLong();
+                case 1 -> significand = random.nextLong() >>> random.nextInt(64);
+                case 2 -> significand = random.nextInt(1000000);
+                default -> {
+                    // Decimal representations of doubles, which exercise
+                    // values close to halfway between two doubles.
+                    var value = Double.longBitsToDouble(random.nextLong() & Long.MAX_VALUE);
+                    if (Double.isNaN(value) || Double.isInfinite(value)) {
+                        continue;
+                    }
+                    var parsed = TomlParser.parseString("x = " + value);
+                    var result = ((TomlFloat) parsed.get("x")).value();
+                    assertThat(result, equalTo(value));
+                    continue;
+                }
+            }
+            var exponent = random.nextInt(700) - 360;
+
+            assertMatchesParseDouble(Long.toUnsignedString(significand) + "e" + exponent);
+        }
+    }
+
+    @Test
+    public void randomTomlFloatsMatchParseDouble() {
+        var random = new Random(42);
+
+        for (var iteration = 0; iteration < 100000; iteration++) {
+            var text = new StringBuilder();
+            if (random.nextBoolean()) {
+                text.append(random.nextBoolean() ? '-' : '+');
+            }
+            var integerDigitCount = 1 + random.nextInt(random.nextBoolean() ? 3 : 25);
+            text.append(1 + random.nextInt(9));
+            appendRandomDigits(text, integerDigitCount - 1, random);
+            if (random.nextBoolean()) {
+                text.append('.');
+                appendRandomDigits(text, 1 + random.nextInt(random.nextBoolean() ? 3 : 25), random);
+            }
+            if (random.nextInt(3) > 0) {
+                text.append(random.nextBoolean() ? 'e' : 'E');
+                if (random.nextBoolean()) {
+                    text.append(random.nextBoolean() ? '-' : '+');
+                }
+                text.append(random.nextInt(400));
+            } else if (text.indexOf(".") < 0) {
+                text.append(".0");
+            }
+
+            var parsed = TomlParser.parseString("x = " + text);
+            var result = ((TomlFloat) parsed.get("x")).value();
+            var expected = Double.parseDouble(text.toString());
+            assertThat(result, equalTo(expected));
+        }
+    }
+
+    private static void appendRandomDigits(StringBuilder text, int count, Random random) {
+        for (var index = 0; index < count; index++) {
+            text.append(random.nextInt(10));
+        }
+    }
+
+    private static void assertMatchesParseDouble(String text) {
+        var exponentIndex = text.indexOf('e');
+        var significand = Long.parseUnsignedLong(text.substring(0, exponentIndex));
+        var exponent = Integer.parseInt(text.substring(exponentIndex + 1));
+
+        var bits = DoubleConversion.toDoubleBits(significand, exponent);
+
+        if (bits != -1) {
+            var expected = Double.parseDouble(text);
+            assertThat(Double.longBitsToDouble(bits), equalTo(expected));
+        }
+    }
+}
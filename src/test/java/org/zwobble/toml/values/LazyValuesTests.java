@@ -0,0 +1,131 @@
+package org.zwobble.toml.values;
+
+import org.junit.jupiter.api.Test;
+import org.zwobble.toml.parser.TomlParseOptions;
+import org.zwobble.toml.parser.TomlParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.zwobble.precisely.AssertThat.assertThat;
+import static org.zwobble.precisely.Matchers.equalTo;
+
+public class LazyValuesTests {
+    private static final TomlParseOptions LAZY_OPTIONS = TomlParseOptions.defaults().withLazyScalars(true);
+
+    @Test
+    public void whenScalarsAreLazyThenFloatsAreNotDecodedWhileParsing() {
+        var result = TomlParser.parseString("x = -1.5e3\ny = 0.25", LAZY_OPTIONS);
+
+        var x = (TomlFloat) result.get("x");
+        var y = (TomlFloat) result.get("y");
+        assertThat(x.isDecoded(), equalTo(false));
+        assertThat(y.isDecoded(), equalTo(false));
+
+        assertThat(x.value(), equalTo(-1500.0));
+        assertThat(x.isDecoded(), equalTo(true));
+        assertThat(y.isDecoded(), equalTo(false));
+        assertThat(y.value(), equalTo(0.25));
+    }
+
+    @Test
+    public void whenScalarsAreLazyThenFloatsInArraysAreDecodedWhileParsing() {
+        var result = TomlParser.parseString("x = [0.25]", LAZY_OPTIONS);
+
+        var x = (TomlFloat) ((TomlArray) result.get("x")).get(0);
+        assertThat(x.isDecoded(), equalTo(true));
+        assertThat(x.value(), equalTo(0.25));
+    }
+
+    @Test
+    public void whenScalarsAreEagerThenFloatsAreDecodedWhileParsing() {
+        var result = TomlParser.parseString("x = -1.5e3");
+
+        var x = (TomlFloat) result.get("x");
+        assertThat(x.isDecoded(), equalTo(true));
+        assertThat(x.value(), equalTo(-1500.0));
+    }
+
+    @Test
+    public void whenScalarsAreLazyThenDatesAndTimesAreNotDecodedWhileParsing() {
+        var text = "a = 1979-05-27\nb = 07:32:00.5\nc = 1979-05-27T07:32:00\nd = 1979-05-27T07:32:00-07:00";
+
+        var result = TomlParser.parseString(text, LAZY_OPTIONS);
+
+        var a = (TomlLocalDate) result.get("a");
+        var b = (TomlLocalTime) result.get("b");
+        var c = (TomlLocalDateTime) result.get("c");
+        var d = (TomlOffsetDateTime) result.get("d");
+        assertThat(a.isDecoded(), equalTo(false));
+        assertThat(b.isDecoded(), equalTo(false));
+        assertThat(c.isDecoded(), equalTo(false));
+        assertThat(d.isDecoded(), equalTo(false));
+        assertThat(a.value(), equalTo(LocalDate.of(1979, 5, 27)));
+        assertThat(b.value(), equalTo(LocalTime.of(7, 32, 0, 500_000_000)));
+        assertThat(c.value(), equalTo(LocalDateTime.of(1979, 5, 27, 7, 32, 0)));
+        assertThat(d.value(), equalTo(OffsetDateTime.parse("1979-05-27T07:32:00-07:00")));
+        assertThat(a.isDecoded(), equalTo(true));
+        assertThat(d.isDecoded(), equalTo(true));
+        assertThat(a.isCompact(), equalTo(false));
+    }
+
+    @Test
+    public void lazyDateTimeIsOnlyDecodedOnce() {
+        var result = TomlParser.parseString("x = 1979-05-27T07:32:00Z", LAZY_OPTIONS);
+
+        var x = (TomlOffsetDateTime) result.get("x");
+        var value = x.value();
+        assertThat(x.value() == value, equalTo(true));
+    }
+
+    @Test
+    public void whenSourceIsRetainedThenLazyDatesAndTimesAreDecodedFromTheSource() throws IOException {
+        var options = LAZY_OPTIONS
+            .withRetainSource(true)
+            .withFileReadStrategy(TomlParseOptions.FileReadStrategy.READ_ALL_BYTES);
+        var text = "a = 1979-05-27 # comment\nb = 1979-05-27 07:32:00\nc = [07:32:00, 1979-05-27T00:32:00.999999Z]";
+        var path = Files.createTempFile("lazy-values-tests", ".toml");
+        try {
+            Files.writeString(path, text);
+
+            var fromString = TomlParser.parseString(text, options);
+            var fromFile = TomlParser.parseFile(path, options);
+
+            for (var result : List.of(fromString, fromFile)) {
+                var c = (TomlArray) result.get("c");
+                assertThat(((TomlLocalDate) result.get("a")).value(), equalTo(LocalDate.of(1979, 5, 27)));
+                assertThat(((TomlLocalDateTime) result.get("b")).value(), equalTo(LocalDateTime.of(1979, 5, 27, 7, 32, 0)));
+                assertThat(((TomlLocalTime) c.get(0)).value(), equalTo(LocalTime.of(7, 32, 0)));
+                assertThat(
+                    ((TomlOffsetDateTime) c.get(1)).value(),
+                    equalTo(OffsetDateTime.parse("1979-05-27T00:32:00.999999Z"))
+                );
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void whenScalarsAreLazyAndDateTimesAreCompactThenDatesAndTimesAreCompact() {
+        var options = LAZY_OPTIONS.withCompactDateTimes(true);
+
+        var result = TomlParser.parseString("x = 1979-05-27", options);
+
+        var x = (TomlLocalDate) result.get("x");
+        assertThat(x.isCompact(), equalTo(true));
+        assertThat(x.value(), equalTo(LocalDate.of(1979, 5, 27)));
+    }
+
+    @Test
+    public void lazyFloatIsDecodedFromSignificandAndExponent() {
+        assertThat(TomlFloat.lazy(true, 15, -1, null).value(), equalTo(-1.5));
+        assertThat(TomlFloat.lazy(false, -1L, 0, null).value(), equalTo(0x1p64));
+        assertThat(TomlFloat.lazy(false, 1, 400, null).value(), equalTo(Double.POSITIVE_INFINITY));
+    }
+}
@@ -0,0 +1,47 @@
+package org.zwobble.toml.values;
+
+import org.junit.jupiter.api.Test;
+import org.zwobble.toml.parser.TomlParseOptions;
+import org.zwobble.toml.parser.TomlParser;
+
+import java.util.OptionalInt;
+
+import static org.zwobble.precisely.AssertThat.assertThat;
+import static org.zwobble.precisely.Matchers.equalTo;
+
+public class TomlArrayTests {
+    @Test
+    public void arrayOfFloatsIncludingInfinityAndNanIsStoredAsDoubles() {
+        var result = TomlParser.parseString("x = [1.5, inf, -inf, nan, 1.000000000000000000001]");
+
+        var array = (TomlArray) result.get("x");
+        assertThat(array.isPrimitive(), equalTo(true));
+        assertThat(array.getDouble(1), equalTo(Double.POSITIVE_INFINITY));
+        assertThat(array.getDouble(2), equalTo(Double.NEGATIVE_INFINITY));
+        assertThat(Double.isNaN(array.getDouble(3)), equalTo(true));
+        assertThat(array.getDouble(4), equalTo(1.0));
+    }
+
+    @Test
+    public void whenScalarsAreLazyThenArrayOfFloatsIsStoredAsDoubles() {
+        var options = TomlParseOptions.defaults().withLazyScalars(true);
+
+        var result = TomlParser.parseString("x = [1.5, -2.0]", options);
+
+        var array = (TomlArray) result.get("x");
+        assertThat(array.isPrimitive(), equalTo(true));
+        assertThat(array.getDouble(1), equalTo(-2.0));
+    }
+
+    @Test
+    public void elementsOfPrimitiveArrayHaveSourceRangesWithLines() {
+        var result = TomlParser.parseString("x = [\n  1,\n  2,\n]");
+
+        var array = (TomlArray) result.get("x");
+        var sourceRange = ((TomlInt) array.get(1)).sourceRange();
+        assertThat(array.isPrimitive(), equalTo(true));
+        assertThat(sourceRange.start().codePointIndex(), equalTo(13));
+        assertThat(sourceRange.startLine(), equalTo(OptionalInt.of(3)));
+        assertThat(sourceRange.startColumn(), equalTo(OptionalInt.of(3)));
+    }
+}
@@ -0,0 +1,54 @@
+package org.zwobble.toml.values;
+
+import org.junit.jupiter.api.Test;
+import org.zwobble.toml.parser.TomlParser;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.zwobble.precisely.AssertThat.assertThat;
+import static org.zwobble.precisely.Matchers.equalTo;
+
+public class TomlTableTests {
+    @Test
+    public void tableWithValuesHasSameKeysAndSharesShape() {
+        var table = TomlTable.of(
+            new String[] {"x", "y"},
+            new TomlValue[] {TomlInt.of(1, null), TomlInt.of(2, null)}
+        );
+
+        var result = table.withValues(new TomlValue[] {TomlInt.of(3, null), TomlInt.of(4, null)});
+
+        assertThat(result.shape() == table.shape(), equalTo(true));
+        assertThat(result.get("x"), equalTo(TomlInt.of(3, null)));
+        assertThat(result.get("y"), equalTo(TomlInt.of(4, null)));
+    }
+
+    @Test
+    public void whenNumberOfValuesIsDifferentFromNumberOfKeysThenWithValuesThrows() {
+        var table = TomlTable.of(new String[] {"x"}, new TomlValue[] {TomlInt.of(1, null)});
+
+        assertThrows(IllegalArgumentException.class, () -> table.withValues(new TomlValue[0]));
+    }
+
+    @Test
+    public void parsedTablesWithTheSameKeysInTheSameOrderShareAShape() {
+        var result = TomlParser.parseString(
+            "points = [{ x = 1, y = 2 }, { x = 3, y = 4 }, { y = 5, x = 6 }]\n" +
+                "[[servers]]\nhost = 'a'\nport = 1\n" +
+                "[[servers]]\nhost = 'b'\nport = 2\n"
+        );
+
+        var points = ((TomlArray) result.get("points")).iterator();
+        var firstPoint = (TomlTable) points.next();
+        var secondPoint = (TomlTable) points.next();
+        var thirdPoint = (TomlTable) points.next();
+        assertThat(secondPoint.shape() == firstPoint.shape(), equalTo(true));
+        assertThat(thirdPoint.shape() == firstPoint.shape(), equalTo(false));
+        assertThat(((TomlInt) secondPoint.get("y")).value(), equalTo(4L));
+
+        var servers = ((TomlArray) result.get("servers")).iterator();
+        var firstServer = (TomlTable) servers.next();
+        var secondServer = (TomlTable) servers.next();
+        assertThat(secondServer.shape() == firstServer.shape(), equalTo(true));
+        assertThat(((TomlInt) secondServer.get("port")).value(), equalTo(2L));
+    }
+}